@@ -0,0 +1,26 @@
+#!/bin/sh
+# Builds out/cds/eightPuzzle.jar and an application class data sharing archive of every class a short solve
+# loads, so later runs map those classes ready-parsed instead of loading and verifying them.
+#
+#   ./appcds.sh
+#   java -XX:SharedArchiveFile=out/cds/eightPuzzle.jsa -cp out/cds/eightPuzzle.jar eightPuzzle.SolveCommand 867254301
+#
+# Uses the JDK 11 two-step dump (class list, then -Xshare:dump), which later JDKs still accept. String
+# concatenation is compiled inline because bootstrapping the invokedynamic version costs more than a short solve.
+# The training run also saves the 3x3 distance table (see DistanceTable) that later runs memory-map.
+set -e
+cd "$(dirname "$0")"
+OUT=out/cds
+
+rm -rf "$OUT"
+mkdir -p "$OUT/classes"
+javac --release 11 -XDstringConcat=inline -d "$OUT/classes" src/eightPuzzle/*.java
+jar --create --file "$OUT/eightPuzzle.jar" -C "$OUT/classes" .
+
+java -Xshare:off -XX:DumpLoadedClassList="$OUT/classes.lst" -cp "$OUT/eightPuzzle.jar" \
+    eightPuzzle.SolveCommand 867254301 1238546b9a0cde7f > /dev/null
+java -Xshare:dump -XX:SharedClassListFile="$OUT/classes.lst" -XX:SharedArchiveFile="$OUT/eightPuzzle.jsa" \
+    -cp "$OUT/eightPuzzle.jar" > /dev/null
+
+echo "Archive: $OUT/eightPuzzle.jsa"
+echo "Run:     java -XX:SharedArchiveFile=$OUT/eightPuzzle.jsa -cp $OUT/eightPuzzle.jar eightPuzzle.SolveCommand <board>..."
@@ -0,0 +1,514 @@
+package eightPuzzle;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A* over packed boards of any supported side length towards any {@link Goal} using the Manhattan heuristic, plus
+ * faster variants for callers that would rather have a good solution soon than an optimal one late:
+ * <ul>
+ * <li>{@link #solveWeighted weighted A*} orders nodes by g + w * h and returns a solution at most w times optimal</li>
+ * <li>{@link #solveBeam beam search} keeps only the best nodes of each depth and guarantees nothing</li>
+ * <li>{@link #solveAnytime anytime repairing A* (ARA*)} reports a weighted solution first, then keeps lowering the
+ * weight and reusing its search effort until the solution is proven optimal or the deadline passes</li>
+ * </ul>
+ * Nodes live in a {@link NodeArena}, the open list is a {@link BucketQueue} of node indices keyed by f-value and the
+ * closed set maps packed boards to their best known depth, so the search allocates nothing per node. All three are
+ * reset rather than reallocated between solves; an instance is not thread-safe but may be reused.
+ */
+public class AStarSearch {
+    /**
+     * all moves, cached to avoid cloning Move.values() at every node
+     */
+    private static final Move[] MOVES = Move.values();
+    /**
+     * resolution of weighted keys, which are SCALE * (g + w * h) rounded down so they fit a bucket queue
+     */
+    private static final int SCALE = 8;
+    /**
+     * how many expansions pass between deadline checks
+     */
+    private static final int CLOCK_INTERVAL = 1024;
+    /**
+     * open list size of the first flight recorder milestone
+     */
+    private static final int FIRST_MILESTONE = 1 << 10;
+    private static final String BEAM = "beam";
+    private static final String ANYTIME = "ARA*";
+
+    private final int side;
+    private final Goal target;
+    /**
+     * packed target board, kept apart from target for the goal test in the inner loops
+     */
+    private final long goal;
+    /**
+     * distance[tile * 16 + cell] is the taxicab distance of tile at cell from its goal cell
+     */
+    private final int[] distance;
+    /**
+     * table-driven Manhattan distance for whole boards and batches of boards
+     */
+    private final BatchHeuristic heuristic;
+    private final NodeArena arena = new NodeArena(1 << 12);
+    private final BucketQueue open = new BucketQueue();
+    private final ClosedSet closed;
+    /**
+     * iteration in which ARA* last expanded each board
+     */
+    private HeapClosedSet expandedIn;
+    private long expansions;
+
+    /**
+     * @param side side length of the boards to solve, towards the standard goal
+     */
+    public AStarSearch(int side) {
+        this(Goal.standard(side));
+    }
+
+    /**
+     * @param side   side length of the boards to solve, towards the standard goal
+     * @param closed closed set to use, cleared at the start of every solve
+     */
+    public AStarSearch(int side, ClosedSet closed) {
+        this(Goal.standard(side), closed);
+    }
+
+    /**
+     * @param target goal the boards are solved towards
+     */
+    public AStarSearch(Goal target) {
+        this(target, new HeapClosedSet(1 << 12));
+    }
+
+    /**
+     * @param target goal the boards are solved towards
+     * @param closed closed set to use, cleared at the start of every solve
+     */
+    public AStarSearch(Goal target, ClosedSet closed) {
+        this.side = target.getSide();
+        this.target = target;
+        this.goal = target.getPacked();
+        this.distance = target.distances();
+        this.heuristic = new BatchHeuristic(target);
+        this.closed = closed;
+    }
+
+    /**
+     * finds an optimal solution
+     *
+     * @param packed        packed board, which must be solvable
+     * @param maxExpansions maximum number of nodes to expand before giving up
+     * @return optimal moves, or null if the budget ran out first
+     */
+    public Move[] solve(long packed, long maxExpansions) {
+        return weighted(packed, 1.0, maxExpansions);
+    }
+
+    /**
+     * weighted A*: finds a solution at most weight times longer than optimal, typically after far fewer expansions
+     *
+     * @param packed        packed board, which must be solvable
+     * @param weight        heuristic weight, at least 1
+     * @param maxExpansions maximum number of nodes to expand before giving up
+     * @return solution bounded by weight, or a result without a solution if the budget ran out first or it would
+     * take more than {@link ClosedSet#MAX_DEPTH} moves
+     */
+    public SearchResult solveWeighted(long packed, double weight, long maxExpansions) {
+        if (weight < 1.0) {
+            throw new IllegalArgumentException("A* weight must be at least 1: " + weight);
+        }
+        Move[] moves = weighted(packed, weight, maxExpansions);
+        return new SearchResult(moves == null ? null : Solution.of(moves), weight, expansions);
+    }
+
+    /**
+     * beam search: expands the search depth by depth, keeping only the width nodes of lowest heuristic value at
+     * each depth and never revisiting a board
+     *
+     * @param packed        packed board, which must be solvable
+     * @param width         number of nodes kept per depth
+     * @param maxExpansions maximum number of nodes to expand before giving up
+     * @return solution without a length guarantee, or a result without a solution if the beam lost every path to
+     * the goal, reached {@link ClosedSet#MAX_DEPTH} moves or the budget ran out first
+     */
+    public SearchResult solveBeam(long packed, int width, long maxExpansions) {
+        if (width < 1) {
+            throw new IllegalArgumentException("Beam width must be positive: " + width);
+        }
+        Events.Solve event = Events.beginSolve();
+        start(packed);
+        int[] layer = new int[width];
+        layer[0] = arena.add(packed, 0, NodeArena.NO_PARENT, NodeArena.NO_MOVE);
+        int layerSize = 1;
+        if (packed == goal) {
+            return report(event, packed, BEAM, new SearchResult(Solution.EMPTY, 1.0, 0), maxExpansions,
+                    false);
+        }
+        int[] children = new int[4 * width];
+        long[] childBoards = new long[4 * width];
+        int[] childH = new int[4 * width];
+        //every node of a layer lies at the same depth, and the closed set cannot record deeper boards
+        while (layerSize > 0 && arena.depth(layer[0]) < ClosedSet.MAX_DEPTH) {
+            int childCount = 0;
+            for (int i = 0; i < layerSize; i++) {
+                if (expansions++ >= maxExpansions) {
+                    return report(event, packed, BEAM, new SearchResult(null, SearchResult.UNBOUNDED, expansions),
+                            maxExpansions, true);
+                }
+                int node = layer[i];
+                long board = arena.board(node);
+                int g = arena.depth(node);
+                int blank = PackedBoard.blank(board, side);
+                for (Move move : MOVES) {
+                    if (!PackedBoard.canMove(blank, move, side)) {
+                        continue;
+                    }
+                    long child = PackedBoard.slide(board, blank, PackedBoard.target(blank, move, side));
+                    if (closed.get(child) != ClosedSet.ABSENT) {
+                        continue;
+                    }
+                    closed.put(child, g + 1);
+                    int index = arena.add(child, g + 1, node, move.ordinal());
+                    if (child == goal) {
+                        return report(event, packed, BEAM, new SearchResult(Solution.of(arena.path(index)),
+                                SearchResult.UNBOUNDED, expansions), maxExpansions, false);
+                    }
+                    children[childCount] = index;
+                    childBoards[childCount++] = child;
+                }
+            }
+            heuristic.evaluateAll(childBoards, childH, 0, childCount);
+            //the layer has been copied into children, so the next one can overwrite it
+            layerSize = selectBest(children, childH, childCount, width, layer);
+        }
+        return report(event, packed, BEAM, new SearchResult(null, SearchResult.UNBOUNDED, expansions), maxExpansions,
+                false);
+    }
+
+    /**
+     * Anytime repairing A* (ARA*). Runs weighted A* from initialWeight, reports the solution with its proven bound,
+     * then lowers the weight by step and repairs the previous search rather than starting over: within one
+     * iteration each board is expanded at most once, boards improved after their expansion wait for the next
+     * iteration, and all queued boards are re-keyed under the new weight. The reported bound is the smaller of the
+     * weight and the solution length divided by the least g + h still queued.
+     *
+     * @param packed        packed board, which must be solvable
+     * @param initialWeight heuristic weight of the first iteration, at least 1
+     * @param step          amount the weight drops after each iteration
+     * @param deadline      System.nanoTime() value after which the best solution so far is returned
+     * @param maxExpansions maximum number of nodes to expand in total
+     * @param listener      receives every improved solution as it is found, or null
+     * @return the best solution found and its bound, or a result without a solution if none was found in time
+     */
+    public SearchResult solveAnytime(long packed, double initialWeight, double step, long deadline,
+                                     long maxExpansions, Consumer<SearchResult> listener) {
+        if (initialWeight < 1.0 || step <= 0.0) {
+            throw new IllegalArgumentException("ARA* needs a weight of at least 1 and a positive step");
+        }
+        Events.Solve event = Events.beginSolve();
+        start(packed);
+        int milestone = FIRST_MILESTONE;
+        if (expandedIn == null) {
+            expandedIn = new HeapClosedSet(1 << 12);
+        } else {
+            expandedIn.clear();
+        }
+        double weight = initialWeight;
+        int iteration = 1;
+        int goalNode = packed == goal ? 0 : -1;
+        SearchResult best = new SearchResult(null, SearchResult.UNBOUNDED, 0);
+        int[] incons = new int[64];
+        int inconsSize = 0;
+        open.push(arena.add(packed, 0, NodeArena.NO_PARENT, NodeArena.NO_MOVE), key(0, manhattan(packed), weight));
+
+        while (true) {
+            boolean stopped = false;
+            //improve the path: expand while some queued key beats the current solution
+            while (!open.isEmpty() && (goalNode < 0 || open.peekPriority() < SCALE * arena.depth(goalNode))) {
+                int node = open.pop();
+                long board = arena.board(node);
+                int g = arena.depth(node);
+                if (closed.get(board) < g || expandedIn.get(board) == iteration) {
+                    continue;
+                }
+                if (expansions >= maxExpansions
+                        || (expansions % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline > 0)) {
+                    open.push(node, 0);
+                    stopped = true;
+                    break;
+                }
+                expansions++;
+                expandedIn.put(board, iteration);
+                if (g == ClosedSet.MAX_DEPTH) {
+                    continue;
+                }
+                int blank = PackedBoard.blank(board, side);
+                for (Move move : MOVES) {
+                    if (!PackedBoard.canMove(blank, move, side)) {
+                        continue;
+                    }
+                    long child = PackedBoard.slide(board, blank, PackedBoard.target(blank, move, side));
+                    int known = closed.get(child);
+                    if (known != ClosedSet.ABSENT && known <= g + 1) {
+                        continue;
+                    }
+                    closed.put(child, g + 1);
+                    int index = arena.add(child, g + 1, node, move.ordinal());
+                    if (child == goal) {
+                        goalNode = index;
+                    }
+                    if (expandedIn.get(child) == iteration) {
+                        if (inconsSize == incons.length) {
+                            incons = Arrays.copyOf(incons, inconsSize * 2);
+                        }
+                        incons[inconsSize++] = index;
+                    } else {
+                        open.push(index, key(g + 1, manhattan(child), weight));
+                    }
+                }
+                if (open.size() >= milestone) {
+                    milestone = Events.openListMilestone(ANYTIME, open.size(), expansions);
+                }
+            }
+
+            //everything still waiting, without entries superseded by shorter paths
+            int[] queued = open.drain();
+            int[] pending = Arrays.copyOf(queued, queued.length + inconsSize);
+            System.arraycopy(incons, 0, pending, queued.length, inconsSize);
+            int pendingSize = 0;
+            int minF = Integer.MAX_VALUE;
+            for (int node : pending) {
+                long board = arena.board(node);
+                if (closed.get(board) < arena.depth(node)) {
+                    continue;
+                }
+                minF = Math.min(minF, arena.depth(node) + manhattan(board));
+                pending[pendingSize++] = node;
+            }
+            inconsSize = 0;
+
+            if (goalNode >= 0) {
+                int length = arena.depth(goalNode);
+                double bound = minF >= length ? 1.0 : Math.min(weight, (double) length / minF);
+                if (best.getSolution() == null || length < best.getSolution().length()
+                        || bound < best.getBound()) {
+                    best = new SearchResult(Solution.of(arena.path(goalNode)), bound, expansions);
+                    if (listener != null) {
+                        listener.accept(best);
+                    }
+                }
+                if (bound <= 1.0) {
+                    return report(event, packed, ANYTIME, best, maxExpansions, false);
+                }
+            }
+            if (stopped) {
+                return report(event, packed, ANYTIME, new SearchResult(best.getSolution(), best.getBound(),
+                        expansions), maxExpansions, expansions >= maxExpansions);
+            }
+
+            weight = Math.max(1.0, weight - step);
+            if (++iteration > 255) {
+                expandedIn.clear();
+                iteration = 1;
+            }
+            for (int i = 0; i < pendingSize; i++) {
+                int node = pending[i];
+                open.push(node, key(arena.depth(node), manhattan(arena.board(node)), weight));
+            }
+        }
+    }
+
+    /**
+     * @return number of nodes expanded by the last call to solve
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * @return number of nodes generated by the last call to solve
+     */
+    public int getGenerated() {
+        return arena.size();
+    }
+
+    /**
+     * @return target field
+     */
+    public Goal getGoal() {
+        return target;
+    }
+
+    /**
+     * @param packed packed board
+     * @return sum of each tile's distance from its goal cell
+     */
+    public int manhattan(long packed) {
+        return heuristic.evaluate(packed);
+    }
+
+    /**
+     * validates the board and resets the arena, open list, closed set and counters
+     *
+     * @param packed packed board about to be searched
+     */
+    private void start(long packed) {
+        if (!target.isReachableFrom(packed)) {
+            throw new IllegalArgumentException("AStarSearch was passed an unsolvable board");
+        }
+        arena.reset();
+        open.clear();
+        closed.clear();
+        closed.put(packed, 0);
+        expansions = 0;
+    }
+
+    /**
+     * weighted A*, plain A* for a weight of 1
+     *
+     * @return moves, or null if the budget ran out first or no solution lies within {@link ClosedSet#MAX_DEPTH}
+     * moves
+     */
+    private Move[] weighted(long packed, double weight, long maxExpansions) {
+        Events.Solve event = Events.beginSolve();
+        start(packed);
+        String algorithm = weight == 1.0 ? "A*" : "weighted A*";
+        int milestone = FIRST_MILESTONE;
+        //plain A* keys need no extra resolution
+        int scale = weight == 1.0 ? 1 : SCALE;
+        int h = manhattan(packed);
+        //true once a board was left unexpanded because the closed set cannot record its children's depth
+        boolean truncated = false;
+        open.push(arena.add(packed, 0, NodeArena.NO_PARENT, NodeArena.NO_MOVE), key(0, h, weight, scale));
+        while (!open.isEmpty()) {
+            int node = open.pop();
+            long board = arena.board(node);
+            int g = arena.depth(node);
+            //a shorter path to this board was queued after this node was
+            if (closed.get(board) < g) {
+                continue;
+            }
+            if (board == goal) {
+                Move[] path = arena.path(node);
+                Events.finish(event, packed, side, algorithm, Events.MANHATTAN, weight, expansions, arena.size(),
+                        path.length, Events.SOLVED);
+                return path;
+            }
+            if (expansions++ >= maxExpansions) {
+                Events.budgetAbort(packed, side, algorithm, maxExpansions);
+                Events.finish(event, packed, side, algorithm, Events.MANHATTAN, weight, expansions, arena.size(),
+                        -1, Events.BUDGET_EXCEEDED);
+                return null;
+            }
+            if (g == ClosedSet.MAX_DEPTH) {
+                truncated = true;
+                continue;
+            }
+            h = manhattan(board);
+            int blank = PackedBoard.blank(board, side);
+            int last = arena.move(node);
+            for (Move move : MOVES) {
+                if ((last != NodeArena.NO_MOVE && move == MOVES[last].inverse())
+                        || !PackedBoard.canMove(blank, move, side)) {
+                    continue;
+                }
+                int target = PackedBoard.target(blank, move, side);
+                long child = PackedBoard.slide(board, blank, target);
+                int known = closed.get(child);
+                if (known != ClosedSet.ABSENT && known <= g + 1) {
+                    continue;
+                }
+                closed.put(child, g + 1);
+                int tile = PackedBoard.get(board, target);
+                int childH = h - distance[tile * 16 + target] + distance[tile * 16 + blank];
+                open.push(arena.add(child, g + 1, node, move.ordinal()), key(g + 1, childH, weight, scale));
+            }
+            if (open.size() >= milestone) {
+                milestone = Events.openListMilestone(algorithm, open.size(), expansions);
+            }
+        }
+        if (truncated) {
+            Events.finish(event, packed, side, algorithm, Events.MANHATTAN, weight, expansions, arena.size(), -1,
+                    Events.NOT_FOUND);
+            return null;
+        }
+        throw new IllegalStateException("AStarSearch exhausted the state space without reaching the goal");
+    }
+
+    /**
+     * records the flight recorder events of a finished search
+     *
+     * @param event         event begun when the search started
+     * @param packed        packed start board
+     * @param algorithm     name of the search
+     * @param result        result about to be returned
+     * @param maxExpansions expansion budget the search was given
+     * @param budgetSpent   true if the search stopped because it used up its expansion budget
+     * @return result
+     */
+    private SearchResult report(Events.Solve event, long packed, String algorithm, SearchResult result,
+                                long maxExpansions, boolean budgetSpent) {
+        if (budgetSpent) {
+            Events.budgetAbort(packed, side, algorithm, maxExpansions);
+        }
+        Solution solution = result.getSolution();
+        String outcome = solution != null ? Events.SOLVED : budgetSpent ? Events.BUDGET_EXCEEDED : Events.NOT_FOUND;
+        Events.finish(event, packed, side, algorithm, Events.MANHATTAN, result.getBound(), expansions, arena.size(),
+                solution == null ? -1 : solution.length(), outcome);
+        return result;
+    }
+
+    /**
+     * @return weighted key at the resolution used by ARA*
+     */
+    private static int key(int g, int h, double weight) {
+        return key(g, h, weight, SCALE);
+    }
+
+    /**
+     * rounding down keeps every key at most scale * (g + weight * h), which is what the weight's bound relies on
+     *
+     * @return bucket queue priority of a node
+     */
+    private static int key(int g, int h, double weight, int scale) {
+        return scale * g + (int) (scale * weight * h);
+    }
+
+    /**
+     * copies the nodes of the width lowest heuristic values into layer, using a counting sort on h
+     *
+     * @return number of nodes copied
+     */
+    private static int selectBest(int[] nodes, int[] h, int count, int width, int[] layer) {
+        if (count <= width) {
+            System.arraycopy(nodes, 0, layer, 0, count);
+            return count;
+        }
+        int maxH = 0;
+        for (int i = 0; i < count; i++) {
+            maxH = Math.max(maxH, h[i]);
+        }
+        int[] histogram = new int[maxH + 2];
+        for (int i = 0; i < count; i++) {
+            histogram[h[i] + 1]++;
+        }
+        //lowest h value that does not fit entirely, and how many of its nodes still do
+        int cutoff = 0;
+        int taken = 0;
+        while (taken + histogram[cutoff + 1] <= width) {
+            taken += histogram[++cutoff];
+        }
+        int room = width - taken;
+        int filled = 0;
+        for (int i = 0; i < count && filled < width; i++) {
+            if (h[i] < cutoff) {
+                layer[filled++] = nodes[i];
+            } else if (h[i] == cutoff && room > 0) {
+                layer[filled++] = nodes[i];
+                room--;
+            }
+        }
+        return filled;
+    }
+}
@@ -0,0 +1,160 @@
+package eightPuzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves batches of boards in parallel on a fixed pool of worker threads, answering repeats from a
+ * {@link SolutionCache} and solving duplicate boards within a batch only once
+ */
+public class BatchSolver implements AutoCloseable {
+    /**
+     * worker threads, each running an independent {@link Solver}
+     */
+    private final ExecutorService pool;
+    /**
+     * solutions shared between batches
+     */
+    private final SolutionCache cache;
+
+    /**
+     * @param threads number of worker threads
+     * @param cache   solutions shared between batches
+     */
+    public BatchSolver(int threads, SolutionCache cache) {
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "batch-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = cache;
+    }
+
+    /**
+     * solves every board under the same expansion budget
+     *
+     * @param boards boards to solve
+     * @param budget maximum number of states to expand per board
+     * @return solution per board, in input order
+     * @see #solveAll(List, long[])
+     */
+    public List<Solution> solveAll(List<Board> boards, long budget) {
+        long[] budgets = new long[boards.size()];
+        Arrays.fill(budgets, budget);
+        return solveAll(boards, budgets);
+    }
+
+    /**
+     * Solves every board, each under its own expansion budget. Boards that are not solveable or that exhaust
+     * their budget yield null.
+     *
+     * @param boards  boards to solve
+     * @param budgets maximum number of states to expand, one per board
+     * @return solution per board, in input order
+     */
+    public List<Solution> solveAll(List<Board> boards, long[] budgets) {
+        List<Solution> results = new ArrayList<>(boards.size());
+        for (CompletableFuture<Solution> future : submitAll(boards, budgets)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while solving batch", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Solver failed", ex.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Starts solving every board, each under its own expansion budget, without waiting for the solutions. Boards
+     * answered by the cache or not solveable are already complete on return.
+     *
+     * @param boards  boards to solve
+     * @param budgets maximum number of states to expand, one per board
+     * @return future solution per board, in input order, completing with null if the board is not solveable or
+     * exhausts its budget
+     */
+    public List<CompletableFuture<Solution>> submitAll(List<Board> boards, long[] budgets) {
+        if (budgets.length != boards.size()) {
+            throw new IllegalArgumentException("BatchSolver needs one budget per board");
+        }
+        //a board repeated within the batch is solved once, under the largest budget asked of it
+        Map<Board, Long> pending = new HashMap<>();
+        List<CompletableFuture<Solution>> results = new ArrayList<>(boards.size());
+        for (int i = 0; i < boards.size(); i++) {
+            Board board = boards.get(i);
+            if (!Solver.isSolveable(board)) {
+                results.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            Solution cached = cache.get(board);
+            results.add(cached == null ? null : CompletableFuture.completedFuture(cached));
+            if (cached == null) {
+                pending.merge(board, budgets[i], Math::max);
+            }
+        }
+
+        Map<Board, CompletableFuture<Solution>> futures = new HashMap<>();
+        for (Map.Entry<Board, Long> entry : pending.entrySet()) {
+            Board board = entry.getKey();
+            long budget = entry.getValue();
+            futures.put(board, CompletableFuture.supplyAsync(() -> solveOne(board, budget), pool));
+        }
+        for (int i = 0; i < boards.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, futures.get(boards.get(i)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return cache field
+     */
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * stops the worker threads, waiting for boards already being solved so their solutions reach the cache before
+     * anything behind it, such as a {@link SolutionStore}, is closed
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        try {
+            //solvers do not check for interruption, but every solve ends within its budget
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * solves a single board on a worker thread and caches the result
+     *
+     * @param board  board to solve
+     * @param budget maximum number of states to expand
+     * @return solution, or null if the budget ran out
+     */
+    private Solution solveOne(Board board, long budget) {
+        Solver solver = new Solver(new State(board));
+        State win = solver.solve(solver.getQueue().peek(), budget);
+        if (win == null) {
+            return null;
+        }
+        Solution solution = Solution.of(win.getMoveList());
+        cache.put(board, solution);
+        return solution;
+    }
+}
@@ -2,7 +2,7 @@ package eightPuzzle;
 
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Alec Mills
@@ -20,14 +20,6 @@ public class Board implements Serializable {
      * 2d-array representation of the game board
      */
     private final int[][] tiles;
-    /**
-     * 2d-array representation of a winning game board
-     */
-    private final int[][] goal = {
-            {1, 2, 3},
-            {4, 5, 6},
-            {7, 8, 0}
-    };
 
     /**
      * constructs a new randomly arranged board consisting of values [0,8] wherein 0 indicates a blank space
@@ -55,6 +47,15 @@ public class Board implements Serializable {
         }
     }
 
+    /**
+     * constructs a new board from its packed representation
+     *
+     * @param packed packed 3x3 board, see {@link PackedBoard}
+     */
+    public Board(long packed) {
+        tiles = PackedBoard.unpack(packed, 3);
+    }
+
     /**
      * copy constructor
      *
@@ -109,6 +110,13 @@ public class Board implements Serializable {
         return sb.toString();
     }
 
+    /**
+     * @return this board packed into a single long, see {@link PackedBoard}
+     */
+    public long pack() {
+        return PackedBoard.pack(tiles);
+    }
+
     /**
      * @return tiles field
      */
@@ -225,22 +233,33 @@ public class Board implements Serializable {
         return Arrays.hashCode(getTiles());
     }
 
+    /**
+     * @return true or false as this board is or is not the standard goal
+     */
     public boolean isWin() {
-        return this.equals(new Board(goal));
+        return isWin(Goal.standard(3));
+    }
+
+    /**
+     * @param goal target layout
+     * @return true or false as this board is or is not goal
+     */
+    public boolean isWin(Goal goal) {
+        return goal.isGoal(pack());
     }
 
     /**
-     * constructor helper: creates a copy an int array sorted in random order using simplified Fisher-Yates algorithm
+     * constructor helper: sorts an int array into a uniformly random order using the Fisher-Yates algorithm
      *
      * @param original array to be randomly sorted
-     * @return a new array containing the original values sorted in a random order
+     * @return the original array, its values sorted in a random order
      */
     private static int[] genValues(int[] original) {
-        Random rand = new Random();
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
         int max = original.length - 1;
 
         while (max > 0) {
-            swap(original, max, rand.nextInt(max));
+            swap(original, max, rand.nextInt(max + 1));
             max--;
         }
         return original;
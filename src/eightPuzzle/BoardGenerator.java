@@ -0,0 +1,130 @@
+package eightPuzzle;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates uniformly random solvable boards without rejection sampling.
+ * <p>
+ * A uniformly random arrangement is shuffled directly in packed form; if it turns out to be unsolvable, two
+ * non-blank tiles at positions chosen only by the blank's cell are swapped. That swap flips the permutation parity
+ * without moving the blank and is its own inverse, so it maps the unsolvable arrangements one-to-one onto the
+ * solvable ones and the result stays uniform.
+ * <p>
+ * Instances are not thread-safe; use {@link #split()} to hand independent generators to other threads.
+ */
+public class BoardGenerator {
+    /**
+     * source of randomness
+     */
+    private final SplittableRandom random;
+    /**
+     * side length of the generated boards
+     */
+    private final int side;
+    /**
+     * packed goal board; generated boards are solvable towards it
+     */
+    private final long goal;
+
+    /**
+     * constructs an unseeded generator of 3x3 boards
+     */
+    public BoardGenerator() {
+        this(new SplittableRandom(), 3);
+    }
+
+    /**
+     * constructs a deterministic generator
+     *
+     * @param seed seed for the underlying random source
+     * @param side side length of the generated boards
+     */
+    public BoardGenerator(long seed, int side) {
+        this(new SplittableRandom(seed), side);
+    }
+
+    /**
+     * @param random source of randomness
+     * @param side   side length of the generated boards
+     */
+    private BoardGenerator(SplittableRandom random, int side) {
+        PackedBoard.checkSide(side);
+        this.random = random;
+        this.side = side;
+        this.goal = PackedBoard.goal(side);
+    }
+
+    /**
+     * @return a new generator, statistically independent of this one, for use on another thread
+     */
+    public BoardGenerator split() {
+        return new BoardGenerator(random.split(), side);
+    }
+
+    /**
+     * @return side field
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * @return a uniformly random packed board that may or may not be solvable
+     */
+    public long nextPacked() {
+        long packed = goal;
+        //Fisher-Yates on the nibbles
+        for (int i = side * side - 1; i > 0; i--) {
+            packed = PackedBoard.swap(packed, i, random.nextInt(i + 1));
+        }
+        return packed;
+    }
+
+    /**
+     * @return a uniformly random solvable packed board
+     */
+    public long nextSolvable() {
+        long packed = nextPacked();
+        if (!PackedBoard.isSolvable(packed, goal, side)) {
+            packed = fixParity(packed);
+        }
+        return packed;
+    }
+
+    /**
+     * @return a uniformly random solvable 3x3 board
+     */
+    public Board nextBoard() {
+        if (side != 3) {
+            throw new IllegalStateException("Board only supports 3x3 layouts; use nextSolvable() instead");
+        }
+        return new Board(nextSolvable());
+    }
+
+    /**
+     * fills an array with uniformly random solvable packed boards
+     *
+     * @param out destination array
+     */
+    public void fill(long[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = nextSolvable();
+        }
+    }
+
+    /**
+     * swaps the first two non-blank cells
+     *
+     * @param packed packed board
+     * @return packed board of opposite permutation parity with the blank in the same cell
+     */
+    private static long fixParity(long packed) {
+        if (PackedBoard.get(packed, 0) == 0) {
+            return PackedBoard.swap(packed, 1, 2);
+        }
+        if (PackedBoard.get(packed, 1) == 0) {
+            return PackedBoard.swap(packed, 0, 2);
+        }
+        return PackedBoard.swap(packed, 0, 1);
+    }
+}
@@ -0,0 +1,96 @@
+package eightPuzzle;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of node indices keyed by small non-negative integer priorities, one stack per priority.
+ * Nodes of equal priority come out last-in-first-out, which favours the deepest nodes on A* ties.
+ */
+class BucketQueue {
+    private int[][] buckets = new int[64][];
+    private int[] sizes = new int[64];
+    /**
+     * lowest priority that may be non-empty
+     */
+    private int min;
+    private int size;
+
+    /**
+     * @param node     node index
+     * @param priority priority, lower comes out first
+     */
+    void push(int node, int priority) {
+        if (priority >= buckets.length) {
+            int length = Math.max(buckets.length * 2, priority + 1);
+            buckets = Arrays.copyOf(buckets, length);
+            sizes = Arrays.copyOf(sizes, length);
+        }
+        int[] bucket = buckets[priority];
+        if (bucket == null) {
+            bucket = buckets[priority] = new int[64];
+        } else if (sizes[priority] == bucket.length) {
+            bucket = buckets[priority] = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[sizes[priority]++] = node;
+        if (priority < min) {
+            min = priority;
+        }
+        size++;
+    }
+
+    /**
+     * @return node index of lowest priority; the queue must not be empty
+     */
+    int pop() {
+        while (sizes[min] == 0) {
+            min++;
+        }
+        size--;
+        return buckets[min][--sizes[min]];
+    }
+
+    /**
+     * @return priority of the node pop() would return; the queue must not be empty
+     */
+    int peekPriority() {
+        while (sizes[min] == 0) {
+            min++;
+        }
+        return min;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * removes every node, e.g. to push them again under new priorities
+     *
+     * @return the nodes that were queued, in no particular order
+     */
+    int[] drain() {
+        int[] nodes = new int[size];
+        int filled = 0;
+        for (int priority = min; priority < sizes.length; priority++) {
+            if (sizes[priority] > 0) {
+                System.arraycopy(buckets[priority], 0, nodes, filled, sizes[priority]);
+                filled += sizes[priority];
+            }
+        }
+        clear();
+        return nodes;
+    }
+
+    /**
+     * empties the queue while keeping its buckets
+     */
+    void clear() {
+        Arrays.fill(sizes, 0);
+        min = 0;
+        size = 0;
+    }
+}
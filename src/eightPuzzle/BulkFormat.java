@@ -0,0 +1,166 @@
+package eightPuzzle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes bulk instance files.
+ * <p>
+ * A bulk file is plain text with one instance per line: the board as one hexadecimal digit per cell in row-major
+ * order (9 digits for 3x3, 16 for 4x4, 0 being the blank), optionally followed by whitespace and the optimal
+ * distance ({@code -} if unknown) and then optionally by a solution as one letter per move ({@code -} if empty),
+ * see {@link Solution}.
+ * Blank lines and lines starting with '#' are ignored. For example {@code 123456708 1 R}.
+ */
+public final class BulkFormat {
+    private BulkFormat() {
+    }
+
+    /**
+     * @param packed packed board
+     * @param side   side length of the board
+     * @return the board as one hex digit per cell
+     */
+    public static String encode(long packed, int side) {
+        int cells = side * side;
+        char[] digits = new char[cells];
+        for (int i = 0; i < cells; i++) {
+            digits[i] = Character.forDigit(PackedBoard.get(packed, i), 16);
+        }
+        return new String(digits);
+    }
+
+    /**
+     * @param cells the board as one hex digit per cell
+     * @return packed board
+     */
+    public static long decode(String cells) {
+        int side = sideOf(cells);
+        long packed = 0L;
+        int seen = 0;
+        for (int i = 0; i < cells.length(); i++) {
+            int tile = Character.digit(cells.charAt(i), 16);
+            if (tile < 0 || tile >= side * side || (seen & (1 << tile)) != 0) {
+                throw new IllegalArgumentException("Bad board in bulk file: " + cells);
+            }
+            seen |= 1 << tile;
+            packed = PackedBoard.set(packed, i, tile);
+        }
+        return packed;
+    }
+
+    /**
+     * @param cells the board as one hex digit per cell
+     * @return side length of the board
+     */
+    public static int sideOf(String cells) {
+        int side = (int) Math.round(Math.sqrt(cells.length()));
+        if (side * side != cells.length()) {
+            throw new IllegalArgumentException("Bad board length in bulk file: " + cells);
+        }
+        PackedBoard.checkSide(side);
+        return side;
+    }
+
+    /**
+     * @param instance instance to format
+     * @return instance as one line of a bulk file, without the line terminator
+     */
+    public static String format(Instance instance) {
+        String cells = encode(instance.getPacked(), instance.getSide());
+        String depth = instance.getDepth() == Instance.UNKNOWN_DEPTH ? "-" : String.valueOf(instance.getDepth());
+        if (instance.getSolution() != null) {
+            String moves = instance.getSolution().length() == 0 ? "-" : instance.getSolution().toString();
+            return cells + " " + depth + " " + moves;
+        }
+        if (instance.getDepth() == Instance.UNKNOWN_DEPTH) {
+            return cells;
+        }
+        return cells + " " + depth;
+    }
+
+    /**
+     * @param line one line of a bulk file
+     * @return parsed instance, or null for blank and comment lines
+     */
+    public static Instance parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        String[] fields = trimmed.split("\\s+");
+        int depth = Instance.UNKNOWN_DEPTH;
+        if (fields.length > 1 && !fields[1].equals("-")) {
+            try {
+                depth = Integer.parseInt(fields[1]);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Bad depth in bulk file: " + line);
+            }
+        }
+        Solution solution = null;
+        if (fields.length > 2) {
+            solution = fields[2].equals("-") ? Solution.EMPTY : Solution.parse(fields[2]);
+        }
+        return new Instance(decode(fields[0]), sideOf(fields[0]), depth, solution);
+    }
+
+    /**
+     * @param file bulk file to read
+     * @return instances in file order
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Instance> read(Path file) throws IOException {
+        List<Instance> instances = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Instance instance = parse(line);
+                if (instance != null) {
+                    instances.add(instance);
+                }
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * @param file bulk file to read
+     * @return the comment on the file's first line, as {@link #write(Path, String, List)} writes it, or null if
+     * the first line is not a comment
+     * @throws IOException if the file cannot be read
+     */
+    public static String readHeader(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line = in.readLine();
+            if (line == null || !line.startsWith("#")) {
+                return null;
+            }
+            return line.substring(1).trim();
+        }
+    }
+
+    /**
+     * @param file      bulk file to (over)write
+     * @param header    comment written as the first line, or null
+     * @param instances instances to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, String header, List<Instance> instances) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            if (header != null) {
+                out.write("# " + header);
+                out.newLine();
+            }
+            for (Instance instance : instances) {
+                out.write(format(instance));
+                out.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package eightPuzzle;
+
+/**
+ * Map from packed boards to the fewest moves known to reach them, used by searches to skip revisiting states.
+ * The packed value 0 is never a valid board and may be used by implementations to mark empty slots.
+ */
+public interface ClosedSet {
+    /**
+     * value returned for boards that have not been stored
+     */
+    int ABSENT = -1;
+    /**
+     * largest number of moves a closed set stores; searches must not generate deeper boards
+     */
+    int MAX_DEPTH = 255;
+
+    /**
+     * @param board packed board
+     * @return stored number of moves, or ABSENT
+     */
+    int get(long board);
+
+    /**
+     * stores or overwrites the number of moves for a board
+     *
+     * @param board packed board
+     * @param depth number of moves, in [0, MAX_DEPTH]
+     * @throws IllegalArgumentException if depth is out of range
+     */
+    void put(long board, int depth);
+
+    /**
+     * @return number of boards stored
+     */
+    long size();
+
+    /**
+     * removes every board
+     */
+    void clear();
+}
@@ -0,0 +1,206 @@
+package eightPuzzle;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates boards at an exact optimal distance from the goal, deterministically for a given seed, so benchmark
+ * corpora can be bucketed by difficulty.
+ * <p>
+ * 3x3 boards are drawn uniformly from the matching layer of a breadth-first search backwards from the goal. Larger
+ * boards are scrambled by a random walk that never undoes its previous move; whenever the walk is long enough its
+ * board is solved with {@link IdaStar} and the walk is kept, extended or restarted according to the true distance.
+ */
+public class DepthGenerator {
+    /**
+     * all moves, cached to avoid cloning Move.values() on every step
+     */
+    private static final Move[] MOVES = Move.values();
+    /**
+     * expansion budget for verifying one walk; walks that need more are abandoned
+     */
+    private static final long VERIFY_BUDGET = 50_000_000L;
+    /**
+     * expansions spent verifying walks for one board before giving up; deep 4x4 boards mostly exceed the verify
+     * budget, so a depth out of reach fails after this much work rather than after a fixed number of walks
+     */
+    private static final long MAX_VERIFY_EXPANSIONS = 20 * VERIFY_BUDGET;
+    /**
+     * times one walk is extended to make up for moves it undid before it is abandoned
+     */
+    private static final int MAX_EXTENSIONS = 16;
+
+    private final SplittableRandom random;
+    private final int side;
+    /**
+     * verifier for boards larger than 3x3
+     */
+    private IdaStar verifier;
+
+    /**
+     * @param seed seed for the underlying random source
+     * @param side side length of the generated boards
+     */
+    public DepthGenerator(long seed, int side) {
+        PackedBoard.checkSide(side);
+        this.random = new SplittableRandom(seed);
+        this.side = side;
+    }
+
+    /**
+     * @param depth optimal number of moves from the goal
+     * @return a packed board exactly depth moves from the goal
+     * @throws IllegalStateException if no walk reached a verifiable board at that depth
+     */
+    public long next(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("DepthGenerator depth must not be negative");
+        }
+        if (side == 3) {
+            long[] layer = Layers.layer(depth);
+            return layer[random.nextInt(layer.length)];
+        }
+        return walk(depth);
+    }
+
+    /**
+     * @param depth optimal number of moves from the goal
+     * @param count number of instances
+     * @return count instances exactly depth moves from the goal
+     * @throws IllegalStateException if no walk reached a verifiable board at that depth
+     */
+    public List<Instance> generate(int depth, int count) {
+        List<Instance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instances.add(new Instance(next(depth), side, depth));
+        }
+        return instances;
+    }
+
+    /**
+     * scrambles random walks until one ends exactly depth moves from the goal
+     *
+     * @param depth optimal number of moves from the goal
+     * @return packed board
+     * @throws IllegalStateException if MAX_VERIFY_EXPANSIONS were spent without success
+     */
+    private long walk(int depth) {
+        if (verifier == null) {
+            verifier = new IdaStar(side);
+        }
+        long goal = PackedBoard.goal(side);
+        long spent = 0;
+        while (spent < MAX_VERIFY_EXPANSIONS) {
+            long packed = goal;
+            int blank = side * side - 1;
+            Move last = null;
+            int steps = depth;
+            for (int extension = 0; extension <= MAX_EXTENSIONS && spent < MAX_VERIFY_EXPANSIONS; extension++) {
+                for (int i = 0; i < steps; i++) {
+                    Move move;
+                    do {
+                        move = MOVES[random.nextInt(MOVES.length)];
+                    } while ((last != null && move == last.inverse()) || !PackedBoard.canMove(blank, move, side));
+                    int target = PackedBoard.target(blank, move, side);
+                    packed = PackedBoard.slide(packed, blank, target);
+                    blank = target;
+                    last = move;
+                }
+                ArrayList<Move> solution = verifier.solve(packed,
+                        Math.min(VERIFY_BUDGET, MAX_VERIFY_EXPANSIONS - spent));
+                spent += verifier.getExpansions();
+                if (solution == null || solution.size() > depth) {
+                    break;
+                }
+                if (solution.size() == depth) {
+                    return packed;
+                }
+                //the walk doubled back on itself somewhere; keep walking to make up the difference
+                steps = depth - solution.size();
+            }
+        }
+        throw new IllegalStateException("DepthGenerator found no " + side + "x" + side + " board " + depth
+                + " moves from the goal within " + MAX_VERIFY_EXPANSIONS + " verify expansions; boards that deep"
+                + " exceed its verify budget");
+    }
+
+    /**
+     * Lazily built breadth-first layers of the 3x3 state space, shared by all generators
+     */
+    private static final class Layers {
+        private static final List<long[]> LAYERS = build();
+
+        private static long[] layer(int depth) {
+            if (depth >= LAYERS.size()) {
+                throw new IllegalArgumentException("No 3x3 board is " + depth + " moves from the goal; the maximum is "
+                        + (LAYERS.size() - 1));
+            }
+            return LAYERS.get(depth);
+        }
+
+        private static List<long[]> build() {
+            List<long[]> layers = new ArrayList<>();
+            //one bit per permutation rank of the 9 cells
+            long[] seen = new long[(int) (PermutationRank.factorial(9) / 64) + 1];
+            long goal = PackedBoard.goal(3);
+            long[] frontier = {goal};
+            markSeen(seen, goal);
+            while (frontier.length > 0) {
+                layers.add(frontier);
+                long[] next = new long[frontier.length * 4];
+                int size = 0;
+                for (long packed : frontier) {
+                    int blank = PackedBoard.blank(packed, 3);
+                    for (Move move : MOVES) {
+                        if (PackedBoard.canMove(blank, move, 3)) {
+                            long child = PackedBoard.slide(packed, blank, PackedBoard.target(blank, move, 3));
+                            if (markSeen(seen, child)) {
+                                next[size++] = child;
+                            }
+                        }
+                    }
+                }
+                frontier = Arrays.copyOf(next, size);
+            }
+            return layers;
+        }
+
+        /**
+         * @return true if the board was not yet marked
+         */
+        private static boolean markSeen(long[] seen, long packed) {
+            int rank = (int) PermutationRank.rank(packed, 9);
+            long bit = 1L << rank;
+            if ((seen[rank >>> 6] & bit) != 0) {
+                return false;
+            }
+            seen[rank >>> 6] |= bit;
+            return true;
+        }
+    }
+
+    /**
+     * writes a bulk file of boards at an exact depth
+     *
+     * @param args side depth count seed file
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5) {
+            System.out.println("usage: DepthGenerator <side> <depth> <count> <seed> <file>");
+            return;
+        }
+        int side = Integer.parseInt(args[0]);
+        int depth = Integer.parseInt(args[1]);
+        int count = Integer.parseInt(args[2]);
+        long seed = Long.parseLong(args[3]);
+        List<Instance> instances = new DepthGenerator(seed, side).generate(depth, count);
+        BulkFormat.write(Paths.get(args[4]), String.format("side=%d depth=%d count=%d seed=%d", side, depth, count,
+                seed), instances);
+        System.out.printf("Wrote %d boards at depth %d to %s%n", count, depth, args[4]);
+    }
+}
@@ -0,0 +1,245 @@
+package eightPuzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Exact number of moves from every 3x3 board to the standard goal, one byte per {@link PermutationRank rank}.
+ * <p>
+ * With the table the optimal next move from any board is the move to a neighbour one step closer, so hints and
+ * whole solutions from the player's current board cost a handful of rank computations instead of a search. The
+ * shared table is built once by a breadth-first sweep of the state space and saved to a file, which later runs
+ * memory-map on first use instead of building it again, so a short run pays only for the pages it touches. The
+ * file lives in the directory named by the {@code eightPuzzle.tables} system property, by default
+ * {@code .eightPuzzle} in the user's home; {@link #warmUp()} starts loading it early on a background thread.
+ */
+public final class DistanceTable {
+    /**
+     * distance of boards that cannot reach the goal
+     */
+    public static final int UNREACHABLE = -1;
+    private static final int CELLS = 9;
+    /**
+     * all moves, cached to avoid cloning Move.values() at every lookup
+     */
+    private static final Move[] MOVES = Move.values();
+    /**
+     * first bytes of a table file, ending in a format version
+     */
+    private static final long MAGIC = 0x3850_5A44_5442_4C01L;
+    /**
+     * header length of a table file: the magic number
+     */
+    private static final int HEADER = Long.BYTES;
+    private static final String FILE_NAME = "distance-3x3.bin";
+
+    /**
+     * byte at index rank is the distance of the board of that rank, or UNREACHABLE; a heap array or a mapped file
+     */
+    private final ByteBuffer distances;
+
+    private DistanceTable(ByteBuffer distances) {
+        this.distances = distances;
+    }
+
+    /**
+     * @return the shared table, loaded from its file or built on first use
+     */
+    public static DistanceTable standard() {
+        return Holder.TABLE;
+    }
+
+    /**
+     * starts loading the shared table on a daemon thread, if it is not loaded yet
+     */
+    public static void warmUp() {
+        Thread thread = new Thread(DistanceTable::standard, "distance-table");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * builds a new table by enumerating the whole 3x3 state space
+     *
+     * @return the table, held on the heap
+     */
+    public static DistanceTable build() {
+        byte[] distances = new byte[(int) PermutationRank.factorial(CELLS)];
+        Arrays.fill(distances, (byte) UNREACHABLE);
+        StateSpaceBfs bfs = new StateSpaceBfs(3, Runtime.getRuntime().availableProcessors());
+        try {
+            bfs.inMemory(distances);
+        } finally {
+            bfs.shutdown();
+        }
+        return new DistanceTable(ByteBuffer.wrap(distances));
+    }
+
+    /**
+     * Memory-maps a table file, first building and saving the table if the file is missing or not a table file.
+     * The file is written under a temporary name and renamed into place, so concurrent runs never map a partly
+     * written table.
+     *
+     * @param file table file
+     * @return the table, backed by the mapped file
+     * @throws IOException if the file can be neither read nor written
+     */
+    public static DistanceTable load(Path file) throws IOException {
+        if (!isTableFile(file)) {
+            build().save(file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER, channel.size() - HEADER);
+            return new DistanceTable(mapped);
+        }
+    }
+
+    /**
+     * writes the table to file, replacing it atomically
+     *
+     * @param file table file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, FILE_NAME, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER).putLong(0, MAGIC);
+                channel.write(header);
+                ByteBuffer body = distances.duplicate();
+                body.clear();
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the file the shared table is kept in
+     */
+    public static Path defaultFile() {
+        String directory = System.getProperty("eightPuzzle.tables");
+        return directory != null ? Paths.get(directory, FILE_NAME)
+                : Paths.get(System.getProperty("user.home"), ".eightPuzzle", FILE_NAME);
+    }
+
+    /**
+     * @return true or false as file does or does not hold a whole table of the current format
+     */
+    private static boolean isTableFile(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != HEADER + PermutationRank.factorial(CELLS)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                //read until the header is full or the file ends
+            }
+            return !header.hasRemaining() && header.getLong(0) == MAGIC;
+        }
+    }
+
+    /**
+     * @param packed packed 3x3 board
+     * @return fewest moves from packed to the goal, or UNREACHABLE
+     */
+    public int distance(long packed) {
+        return distances.get((int) PermutationRank.rank(packed, CELLS));
+    }
+
+    /**
+     * @param board 3x3 board
+     * @return fewest moves from board to the goal, or UNREACHABLE
+     */
+    public int distance(Board board) {
+        return distance(board.pack());
+    }
+
+    /**
+     * @param packed packed 3x3 board, which must be solvable
+     * @return first move of an optimal solution, or null if packed is the goal
+     */
+    public Move nextMove(long packed) {
+        int distance = distance(packed);
+        if (distance == UNREACHABLE) {
+            throw new IllegalArgumentException("DistanceTable was passed an unsolvable board");
+        }
+        if (distance == 0) {
+            return null;
+        }
+        int blank = PackedBoard.blank(packed, 3);
+        for (Move move : MOVES) {
+            if (PackedBoard.canMove(blank, move, 3)
+                    && distance(PackedBoard.slide(packed, blank, PackedBoard.target(blank, move, 3))) == distance - 1) {
+                return move;
+            }
+        }
+        throw new IllegalStateException("DistanceTable has no closer neighbour of a board at distance " + distance);
+    }
+
+    /**
+     * @param board 3x3 board, which must be solvable
+     * @return first move of an optimal solution, or null if board is the goal
+     */
+    public Move nextMove(Board board) {
+        return nextMove(board.pack());
+    }
+
+    /**
+     * @param packed packed 3x3 board, which must be solvable
+     * @return optimal solution from packed
+     */
+    public Solution solve(long packed) {
+        Events.Solve event = Events.beginSolve();
+        long start = packed;
+        Move[] moves = new Move[Math.max(0, distance(packed))];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = nextMove(packed);
+            int blank = PackedBoard.blank(packed, 3);
+            packed = PackedBoard.slide(packed, blank, PackedBoard.target(blank, moves[i], 3));
+        }
+        if (moves.length == 0 && distance(packed) == UNREACHABLE) {
+            throw new IllegalArgumentException("DistanceTable was passed an unsolvable board");
+        }
+        Events.finish(event, start, 3, "table descent", Events.EXACT, 1.0, moves.length, moves.length, moves.length,
+                Events.SOLVED);
+        return Solution.of(moves);
+    }
+
+    /**
+     * @param board 3x3 board, which must be solvable
+     * @return optimal solution from board
+     */
+    public Solution solve(Board board) {
+        return solve(board.pack());
+    }
+
+    /**
+     * lazy holder of the shared table; falls back to a table on the heap if its file cannot be used
+     */
+    private static final class Holder {
+        private static final DistanceTable TABLE = loadShared();
+
+        private static DistanceTable loadShared() {
+            try {
+                return load(defaultFile());
+            } catch (IOException ex) {
+                return build();
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package eightPuzzle;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events of the solvers, the solution cache and the GUI's save files.
+ * <p>
+ * Registering event classes with the recorder takes a few hundred milliseconds, more than a whole short run, so no
+ * event is created until the recorder is initialized: from startup under {@code -XX:StartFlightRecording}, or from
+ * the first recording started with {@code jcmd}. Otherwise the helpers return null and ignore null events. Fields,
+ * including the hex string of the board, are only filled in once {@code shouldCommit()} says the event will be
+ * recorded. Record them with e.g. {@code -XX:StartFlightRecording:filename=solve.jfr}; they appear under the
+ * "Eight Puzzle" category next to the GC, allocation and CPU samples of the same solves.
+ */
+final class Events {
+    static final String SOLVED = "solved";
+    static final String BUDGET_EXCEEDED = "budget-exceeded";
+    /**
+     * outcome of incomplete searches that stopped without a solution, e.g. a beam that lost every path
+     */
+    static final String NOT_FOUND = "not-found";
+    static final String MANHATTAN = "manhattan";
+    static final String EXACT = "exact-table";
+
+    private Events() {
+    }
+
+    /**
+     * one search, from its start to its result
+     */
+    @Name("eightPuzzle.Solve")
+    @Label("Solve")
+    @Category({"Eight Puzzle", "Solver"})
+    @Description("One search for a solution")
+    static final class Solve extends Event {
+        @Label("Board")
+        @Description("Start board as hex cells in row-major order, 0 being the blank")
+        String board;
+        @Label("Side")
+        int side;
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Heuristic")
+        String heuristic;
+        @Label("Bound")
+        @Description("Proven factor by which the solution may exceed the optimal length, 1 for optimal searches")
+        double bound;
+        @Label("Expanded Nodes")
+        long expansions;
+        @Label("Generated Nodes")
+        long generated;
+        @Label("Solution Length")
+        @Description("Number of moves found, -1 if none")
+        int length;
+        @Label("Outcome")
+        String outcome;
+
+        /**
+         * ends the event and records it if enabled
+         */
+        void finish(long packed, int side, String algorithm, String heuristic, double bound, long expansions,
+                    long generated, int length, String outcome) {
+            end();
+            if (shouldCommit()) {
+                this.board = BulkFormat.encode(packed, side);
+                this.side = side;
+                this.algorithm = algorithm;
+                this.heuristic = heuristic;
+                this.bound = bound;
+                this.expansions = expansions;
+                this.generated = generated;
+                this.length = length;
+                this.outcome = outcome;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * open list reaching the next power of two in size
+     */
+    @Name("eightPuzzle.OpenListMilestone")
+    @Label("Open List Milestone")
+    @Category({"Eight Puzzle", "Solver"})
+    @Description("Open list of a search grew past the next power of two")
+    static final class OpenListMilestone extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Open Nodes")
+        int size;
+        @Label("Expanded Nodes")
+        long expansions;
+    }
+
+    /**
+     * search abandoned because it used up its expansion budget
+     */
+    @Name("eightPuzzle.BudgetAbort")
+    @Label("Budget Abort")
+    @Category({"Eight Puzzle", "Solver"})
+    @Description("Search gave up after expanding its whole budget")
+    static final class BudgetAbort extends Event {
+        @Label("Board")
+        String board;
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Budget")
+        long budget;
+    }
+
+    /**
+     * lookup in a {@link SolutionCache}
+     */
+    @Name("eightPuzzle.CacheLookup")
+    @Label("Solution Cache Lookup")
+    @Category({"Eight Puzzle", "Cache"})
+    static final class CacheLookup extends Event {
+        @Label("Board")
+        String board;
+        @Label("Hit")
+        boolean hit;
+    }
+
+    /**
+     * save or load of a game file
+     */
+    @Name("eightPuzzle.GameFile")
+    @Label("Game File I/O")
+    @Category({"Eight Puzzle", "GUI"})
+    static final class GameFile extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Path")
+        String path;
+        @Label("Size")
+        @DataAmount
+        long bytes;
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    /**
+     * @return true or false as the flight recorder is or is not initialized, and events may or may not be recorded
+     */
+    static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * @return a begun solve event, or null if nothing is being recorded
+     */
+    static Solve beginSolve() {
+        if (!isRecording()) {
+            return null;
+        }
+        Solve event = new Solve();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * ends and records a solve event, if there is one
+     *
+     * @param event event from {@link #beginSolve()}, or null
+     */
+    static void finish(Solve event, long packed, int side, String algorithm, String heuristic, double bound,
+                       long expansions, long generated, int length, String outcome) {
+        if (event != null) {
+            event.finish(packed, side, algorithm, heuristic, bound, expansions, generated, length, outcome);
+        }
+    }
+
+    /**
+     * @return a begun game file event, or null if nothing is being recorded
+     */
+    static GameFile beginGameFile() {
+        if (!isRecording()) {
+            return null;
+        }
+        GameFile event = new GameFile();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * records an open-list milestone if enabled
+     *
+     * @param algorithm  search reaching the milestone
+     * @param size       current open list size
+     * @param expansions nodes expanded so far
+     * @return open list size of the next milestone
+     */
+    static int openListMilestone(String algorithm, int size, long expansions) {
+        if (!isRecording()) {
+            return Integer.highestOneBit(size) << 1;
+        }
+        OpenListMilestone event = new OpenListMilestone();
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.size = size;
+            event.expansions = expansions;
+            event.commit();
+        }
+        return Integer.highestOneBit(size) << 1;
+    }
+
+    /**
+     * records a budget abort if enabled
+     */
+    static void budgetAbort(long packed, int side, String algorithm, long budget) {
+        if (!isRecording()) {
+            return;
+        }
+        BudgetAbort event = new BudgetAbort();
+        if (event.shouldCommit()) {
+            event.board = BulkFormat.encode(packed, side);
+            event.algorithm = algorithm;
+            event.budget = budget;
+            event.commit();
+        }
+    }
+
+    /**
+     * records a cache lookup if enabled
+     */
+    static void cacheLookup(Board board, boolean hit) {
+        if (!isRecording()) {
+            return;
+        }
+        CacheLookup event = new CacheLookup();
+        if (event.shouldCommit()) {
+            event.board = BulkFormat.encode(board.pack(), 3);
+            event.hit = hit;
+            event.commit();
+        }
+    }
+}
@@ -6,9 +6,7 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Alec Mills
@@ -17,10 +15,53 @@ import java.util.TimerTask;
  * Handles GUI for fifteen puzzle
  */
 public class FifteenGUI extends JFrame {
+    /**
+     * client property of each tile label holding its row-major cell index
+     */
+    private static final String CELL_PROPERTY = "cell";
+    /**
+     * file games are saved to and loaded from
+     */
+    private static final String SAVE_FILE = "games.txt";
+    /**
+     * font and border shared by every tile label, created once rather than on every refresh
+     */
+    private static final Font TILE_FONT = new Font("Segoe UI", Font.BOLD, 24);
+    private static final BevelBorder TILE_BORDER = new BevelBorder(BevelBorder.RAISED);
+    /**
+     * TILE_TEXT[tile] is the text of a tile's label
+     */
+    private static final String[] TILE_TEXT = {null, "1", "2", "3", "4", "5", "6", "7", "8"};
+    private static final Goal GOAL = Goal.standard(3);
+    /**
+     * value of shown before the first refresh; no 3x3 board has a tile 15 in every cell
+     */
+    private static final long NOTHING_SHOWN = -1L;
+    /**
+     * initial solution replay speed, in steps per second
+     */
+    private static final double REPLAY_SPEED = 1.25;
+    /**
+     * pending step of a replay view with no frame waiting to be shown
+     */
+    private static final int NO_FRAME = -1;
+
     private JLabel movesLabel;
     private JLabel infoLabel;
     private JPanel tilePanel;
     private JLabel[][] tiles;
+    /**
+     * packed board the tile labels currently show, so a refresh only touches cells that changed
+     */
+    private long shown = NOTHING_SHOWN;
+    /**
+     * move count the moves label currently shows
+     */
+    private int shownMoves = -1;
+    /**
+     * shows the solution replay in progress, if any; replaced rather than duplicated by repeated clicks
+     */
+    private ReplayView replayView;
 
     //game specific variables
     /**
@@ -47,11 +88,17 @@ public class FifteenGUI extends JFrame {
      * used for saving and loading
      */
     private int savedMovesUsed;
+    /**
+     * source of random solvable boards for new games
+     */
+    private final BoardGenerator generator = new BoardGenerator();
 
     /**
      * constructor
      */
     public FifteenGUI() {
+        //build the exact distance table behind hints while the player looks at the first board
+        DistanceTable.warmUp();
         initComponents();
     }
 
@@ -59,11 +106,10 @@ public class FifteenGUI extends JFrame {
      * resets the game to an initial state (i.e. no moves made) with a new randomized board
      */
     private void newGame() {
-        //make sure we get a solveable board and not frustrate our user or algorithm
-        do {
-            board = new Board();
-            initialBoard = new Board(board);
-        } while (!Solver.isSolveable(board));
+        stopReplay();
+        //the generator only hands out solveable boards, so we never frustrate our user or algorithm
+        board = generator.nextBoard();
+        initialBoard = new Board(board);
 
         solver = new Solver(new State(board));
         win = solver.solve(solver.getQueue().peek());
@@ -82,6 +128,7 @@ public class FifteenGUI extends JFrame {
      * @param savedBoard the board to be loaded into the initial state
      */
     private void newGame(Board savedBoard) {
+        stopReplay();
         //make sure we get a solveable board and not frustrate our user or algorithm
         do {
             board = new Board(savedBoard);
@@ -109,6 +156,14 @@ public class FifteenGUI extends JFrame {
         JMenuItem menuSave = new JMenuItem();
         JMenuItem menuLoad = new JMenuItem();
         JMenuItem menuSolve = new JMenuItem();
+        JMenuItem menuHint = new JMenuItem();
+        JMenuItem menuSolveFromHere = new JMenuItem();
+        JMenu menuReplay = new JMenu();
+        JMenuItem menuPause = new JMenuItem();
+        JMenuItem menuStepBack = new JMenuItem();
+        JMenuItem menuStepForward = new JMenuItem();
+        JMenuItem menuFaster = new JMenuItem();
+        JMenuItem menuSlower = new JMenuItem();
         JPanel movesPanel = new JPanel();
         movesLabel = new JLabel();
         JPanel infoPanel = new JPanel();
@@ -176,6 +231,47 @@ public class FifteenGUI extends JFrame {
                 menuSolve.setText("Solve");
                 menuSolve.addActionListener(e -> menuSolveClicked());
                 menuMain.add(menuSolve);
+
+                //---- menuHint ----
+                menuHint.setText("Hint");
+                menuHint.addActionListener(e -> menuHintClicked());
+                menuMain.add(menuHint);
+
+                //---- menuSolveFromHere ----
+                menuSolveFromHere.setText("Solve From Here");
+                menuSolveFromHere.addActionListener(e -> menuSolveFromHereClicked());
+                menuMain.add(menuSolveFromHere);
+
+                //menuReplay menuItem properties
+                {
+                    menuReplay.setText("Replay");
+
+                    //---- menuPause ----
+                    menuPause.setText("Pause/Resume");
+                    menuPause.addActionListener(e -> menuPauseClicked());
+                    menuReplay.add(menuPause);
+
+                    //---- menuStepBack ----
+                    menuStepBack.setText("Step Back");
+                    menuStepBack.addActionListener(e -> menuStepClicked(false));
+                    menuReplay.add(menuStepBack);
+
+                    //---- menuStepForward ----
+                    menuStepForward.setText("Step Forward");
+                    menuStepForward.addActionListener(e -> menuStepClicked(true));
+                    menuReplay.add(menuStepForward);
+
+                    //---- menuFaster ----
+                    menuFaster.setText("Faster");
+                    menuFaster.addActionListener(e -> menuSpeedClicked(2.0));
+                    menuReplay.add(menuFaster);
+
+                    //---- menuSlower ----
+                    menuSlower.setText("Slower");
+                    menuSlower.addActionListener(e -> menuSpeedClicked(0.5));
+                    menuReplay.add(menuSlower);
+                }
+                menuMain.add(menuReplay);
             }
             menuBar1.add(menuMain);
         }
@@ -204,7 +300,14 @@ public class FifteenGUI extends JFrame {
         {
             tilePanel.setLayout(new GridLayout(3, 0, 3, 3));
 
-            //tiles
+            //tiles are styled and added once; refreshBoard() only changes their text and border
+            for (JLabel[] row : tiles) {
+                for (JLabel tile : row) {
+                    tile.setHorizontalAlignment(SwingConstants.CENTER);
+                    tile.setFont(TILE_FONT);
+                    tilePanel.add(tile);
+                }
+            }
             refreshBoard();
         }
         contentPane.add(tilePanel, BorderLayout.CENTER);
@@ -214,8 +317,10 @@ public class FifteenGUI extends JFrame {
 
 
         //action listeners for all of our tiles call the same method
-        for (JLabel[] row : tiles) {
-            for (JLabel el : row) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                JLabel el = tiles[i][j];
+                el.putClientProperty(CELL_PROPERTY, i * 3 + j);
                 el.addMouseListener(new MouseAdapter() {
                     @Override
                     public void mouseClicked(MouseEvent e) {
@@ -236,37 +341,87 @@ public class FifteenGUI extends JFrame {
         infoLabel.setText("Your initial board");
         movesUsed = 0;
 
-        //schedule solver step display to be human-readable using java.util.Timer and java.util.TimerTask
-        java.util.Timer timer = new Timer();
-        //delay in milliseconds before beginning scheduled repeated task
-        long delay = 800L;
-        //delay in milliseconds in between performing scheduled repeated task
-        long period = 800L;
-        TimerTask repeatRefresh = new TimerTask() {
-            //keep track of where we are in our list of moves
-            int index = 0;
-            final ArrayList<Move> moves = win.getMoveList();
-
-            @Override //the task to be repeated
-            public void run() {
-                //get the next move in our list
-                Move move = moves.get(index);
-                //make that move
-                board = board.move(move);
-                //Debugging console output
-//                System.out.printf("Made move: %s%n", move);
-                //tell the system we made a move and display the new board
-                movesUsed++;
-                refreshBoard();
-
-                //if we're at the end of our list, stop repeating run()
-                index++;
-                if (index >= moves.size()) {
-                    cancel();
-                }
+        //replay the solution at a human-readable speed
+        stopReplay();
+        replayView = new ReplayView(initialBoard, Solution.of(win.getMoveList()), 0);
+        replayView.replay.resume();
+    }
+
+    /**
+     * Names the tile to slide next on an optimal path from the current board
+     */
+    private void menuHintClicked() {
+        long packed = board.pack();
+        DistanceTable table = DistanceTable.standard();
+        Move move = table.nextMove(packed);
+        if (move == null) {
+            infoLabel.setText("You win!");
+            return;
+        }
+        int blank = PackedBoard.blank(packed, 3);
+        int tile = PackedBoard.get(packed, PackedBoard.target(blank, move, 3));
+        infoLabel.setText(String.format("Hint: slide tile %d (%d moves to go)", tile, table.distance(packed)));
+    }
+
+    /**
+     * Shows an optimal solution from the current board, keeping the player's progress
+     */
+    private void menuSolveFromHereClicked() {
+        stopReplay();
+        replayView = new ReplayView(board, DistanceTable.standard().solve(board), movesUsed);
+        infoLabel.setText("Solving from here");
+        replayView.replay.resume();
+    }
+
+    /**
+     * pauses a solution replay in progress, or resumes a paused one
+     */
+    private void menuPauseClicked() {
+        if (replayView != null) {
+            if (replayView.replay.isPaused()) {
+                replayView.replay.resume();
+            } else {
+                replayView.replay.pause();
             }
-        };
-        timer.schedule(repeatRefresh, delay, period);
+        }
+    }
+
+    /**
+     * shows one step earlier or later of the current solution replay
+     *
+     * @param forward true to step forward, false to step back
+     */
+    private void menuStepClicked(boolean forward) {
+        if (replayView != null) {
+            replayView.replay.pause();
+            if (forward) {
+                replayView.replay.stepForward();
+            } else {
+                replayView.replay.stepBack();
+            }
+        }
+    }
+
+    /**
+     * changes the speed of the current solution replay
+     *
+     * @param factor multiplier of the current speed
+     */
+    private void menuSpeedClicked(double factor) {
+        if (replayView != null) {
+            replayView.replay.setSpeed(replayView.replay.getSpeed() * factor);
+            infoLabel.setText(String.format("Replay speed: %.2f moves per second", replayView.replay.getSpeed()));
+        }
+    }
+
+    /**
+     * stops a solution replay in progress, if any
+     */
+    private void stopReplay() {
+        if (replayView != null) {
+            replayView.replay.pause();
+            replayView = null;
+        }
     }
 
     /**
@@ -280,9 +435,12 @@ public class FifteenGUI extends JFrame {
      * Save the current game (board and number of moves made)
      */
     private void menuSaveClicked() {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("games.txt"))) {
+        Events.GameFile event = Events.beginGameFile();
+        boolean saved = false;
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(SAVE_FILE))) {
             out.writeObject(board);
             savedMovesUsed = movesUsed;
+            saved = true;
             infoLabel.setText("Game saved");
             //debugging console output
 //            System.out.println("Game saved.");
@@ -290,24 +448,53 @@ public class FifteenGUI extends JFrame {
             System.out.println("games.txt not found, please re-download application");
             ex.printStackTrace();
         }
+        recordGameFile(event, "save", saved);
     }
 
     /**
      * Save the current game (board and number of moves made)
      */
     private void menuLoadClicked() {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream("games.txt"))) {
-            Object object = in.readObject();
-            if (object instanceof Board) {
-                movesUsed = savedMovesUsed;
-                newGame((Board) object);
-                //Debugging console output
-//                System.out.println("Game loaded.");
-            } else throw new IllegalArgumentException("Save file corrupted");
+        Events.GameFile event = Events.beginGameFile();
+        Object object = null;
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(SAVE_FILE))) {
+            object = in.readObject();
         } catch (IOException | ClassNotFoundException ex) {
             System.out.println("games.txt not found, please re-download application");
             ex.printStackTrace();
         }
+        //the event covers the file access only, not the solve of the loaded board
+        recordGameFile(event, "load", object instanceof Board);
+        if (object instanceof Board) {
+            movesUsed = savedMovesUsed;
+            newGame((Board) object);
+            //Debugging console output
+//            System.out.println("Game loaded.");
+        } else if (object != null) {
+            throw new IllegalArgumentException("Save file corrupted");
+        }
+    }
+
+    /**
+     * ends and, if enabled, records a save file event
+     *
+     * @param event     event begun before the file was opened, or null if nothing is being recorded
+     * @param operation "save" or "load"
+     * @param succeeded true or false as the operation did or did not succeed
+     */
+    private static void recordGameFile(Events.GameFile event, String operation, boolean succeeded) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            File file = new File(SAVE_FILE);
+            event.operation = operation;
+            event.path = file.getAbsolutePath();
+            event.bytes = file.length();
+            event.succeeded = succeeded;
+            event.commit();
+        }
     }
 
     /**
@@ -320,42 +507,88 @@ public class FifteenGUI extends JFrame {
         if (e.getSource() instanceof JLabel) {
             source = (JLabel) e.getSource();
         }
-        //stores board indices [row][column] of tile
-        int[] rowCol;
         assert source != null;
-        if (source.getText() != null) {
-            rowCol = board.getTileIndex(Integer.parseInt(source.getText()));
-        } else {
-            rowCol = board.getTileIndex(0);
-        }
-        if (board.moveTile(rowCol[0], rowCol[1]))
+        //a click takes over from any replay, continuing from the board it last showed
+        stopReplay();
+        //each label knows its own cell, so we don't need to search the board for the clicked tile's value
+        int cell = (Integer) source.getClientProperty(CELL_PROPERTY);
+        MutableBoard play = new MutableBoard(board);
+        Move move = play.moveFrom(cell);
+        if (move != null) {
+            play.apply(move);
+            board = play.toBoard();
             movesUsed++;
+        }
         refreshBoard();
     }
 
     /**
-     * Refreshes GUI display to match internal board state
+     * Refreshes GUI display to match internal board state, touching only the tiles that changed since the last
+     * refresh; Swing coalesces the resulting repaints
      */
     private void refreshBoard() {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                if (board.getTiles()[i][j] != 0) {
-                    tiles[i][j].setText(String.valueOf(board.getTiles()[i][j]));
-                    tiles[i][j].setBorder(new BevelBorder(BevelBorder.RAISED));
-                } else {
-                    tiles[i][j].setText(null);
-                    tiles[i][j].setBorder(null);
-                }
-                tiles[i][j].setHorizontalAlignment(SwingConstants.CENTER);
-                tiles[i][j].setFont(new Font("Segoe UI", Font.BOLD, 24));
-                tilePanel.add(tiles[i][j]);
+        long packed = board.pack();
+        long changed = packed ^ shown;
+        for (int cell = 0; cell < 9; cell++) {
+            if ((changed >>> (4 * cell) & 0xF) == 0) {
+                continue;
             }
+            JLabel label = tiles[cell / 3][cell % 3];
+            int tile = PackedBoard.get(packed, cell);
+            label.setText(TILE_TEXT[tile]);
+            label.setBorder(tile != 0 ? TILE_BORDER : null);
         }
-        if (board.isWin()) {
+        shown = packed;
+        if (GOAL.isGoal(packed)) {
             infoLabel.setText("You win!");
             System.out.println("You win!");
             return;
         }
-        movesLabel.setText(String.format("Moves used so far: %d", movesUsed));
+        if (movesUsed != shownMoves) {
+            movesLabel.setText(String.format("Moves used so far: %d", movesUsed));
+            shownMoves = movesUsed;
+        }
+    }
+
+    /**
+     * Shows the boards of one replay. The replay reports frames on its scheduler thread; they are handed to the
+     * event dispatch thread with at most one pending hand-over, so a fast replay skips frames rather than flooding
+     * the event queue.
+     */
+    private class ReplayView implements Replay.Listener {
+        private final Replay replay;
+        /**
+         * latest step reported and not yet shown, or NO_FRAME
+         */
+        private final AtomicInteger pending = new AtomicInteger(NO_FRAME);
+        /**
+         * moves made before the replay's first board
+         */
+        private final int movesBefore;
+
+        private ReplayView(Board start, Solution solution, int movesBefore) {
+            this.movesBefore = movesBefore;
+            replay = new Replay(start, solution, REPLAY_SPEED, this);
+        }
+
+        @Override
+        public void frameShown(int step, long packed) {
+            if (pending.getAndSet(step) == NO_FRAME) {
+                SwingUtilities.invokeLater(this::show);
+            }
+        }
+
+        /**
+         * shows the latest reported frame, unless another replay has taken over
+         */
+        private void show() {
+            int step = pending.getAndSet(NO_FRAME);
+            if (replayView != this || step == NO_FRAME) {
+                return;
+            }
+            board = new Board(replay.frame(step));
+            movesUsed = movesBefore + step;
+            refreshBoard();
+        }
     }
 }
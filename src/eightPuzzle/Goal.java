@@ -0,0 +1,212 @@
+package eightPuzzle;
+
+/**
+ * Target layout of a search together with tables precomputed from it: the cell each tile belongs in and the taxicab
+ * distance of every tile from that cell. Any permutation of the tiles may serve as a goal, e.g. the blank first or
+ * the tiles in snake order; {@link #isGoal(long)} is a single comparison of packed boards.
+ * <p>
+ * Goals are immutable and may be shared between threads.
+ */
+public final class Goal {
+    /**
+     * STANDARD[side] is the goal with tiles 1..n-1 in row-major order and the blank last, built on first use
+     */
+    private static final Goal[] STANDARD = new Goal[PackedBoard.MAX_SIDE + 1];
+
+    private final long packed;
+    private final int side;
+    /**
+     * nibble t is the cell tile t belongs in
+     */
+    private final long cells;
+    /**
+     * distance[tile * 16 + cell] is the taxicab distance of tile at cell from its goal cell; 0 for the blank
+     */
+    private final int[] distance = new int[16 * 16];
+
+    private Goal(long packed, int side) {
+        this.packed = packed;
+        this.side = side;
+        this.cells = PackedBoard.invert(packed, side);
+        int count = side * side;
+        for (int tile = 1; tile < count; tile++) {
+            int target = PackedBoard.get(cells, tile);
+            for (int cell = 0; cell < count; cell++) {
+                distance[tile * 16 + cell] = Math.abs(cell / side - target / side)
+                        + Math.abs(cell % side - target % side);
+            }
+        }
+    }
+
+    /**
+     * @param side side length of the board
+     * @return goal with tiles 1..n-1 in row-major order and the blank in the last cell
+     */
+    public static Goal standard(int side) {
+        PackedBoard.checkSide(side);
+        //goals only have final fields, so one read without the lock is safe and skips it once built
+        Goal goal = STANDARD[side];
+        return goal != null ? goal : buildStandard(side);
+    }
+
+    /**
+     * @return the shared standard goal of side, building it if no other thread has
+     */
+    private static synchronized Goal buildStandard(int side) {
+        if (STANDARD[side] == null) {
+            STANDARD[side] = new Goal(PackedBoard.goal(side), side);
+        }
+        return STANDARD[side];
+    }
+
+    /**
+     * @param packed packed target board holding every tile 0..n-1 exactly once
+     * @param side   side length of the board
+     * @return goal for the target board
+     */
+    public static Goal of(long packed, int side) {
+        PackedBoard.checkSide(side);
+        int count = side * side;
+        int seen = 0;
+        for (int cell = 0; cell < count; cell++) {
+            int tile = PackedBoard.get(packed, cell);
+            if (tile >= count || (seen & (1 << tile)) != 0) {
+                throw new IllegalArgumentException("Goal must hold tiles 0-" + (count - 1) + ", each once: "
+                        + BulkFormat.encode(packed, side));
+            }
+            seen |= 1 << tile;
+        }
+        if (count < 16 && packed >>> (4 * count) != 0) {
+            throw new IllegalArgumentException("Goal has tiles beyond its " + count + " cells");
+        }
+        return packed == PackedBoard.goal(side) ? standard(side) : new Goal(packed, side);
+    }
+
+    /**
+     * @param board 3x3 target board
+     * @return goal for the target board
+     */
+    public static Goal of(Board board) {
+        return of(board.pack(), 3);
+    }
+
+    /**
+     * @param side side length of the board
+     * @return goal with the blank in the first cell followed by tiles 1..n-1 in row-major order
+     */
+    public static Goal blankFirst(int side) {
+        PackedBoard.checkSide(side);
+        long packed = 0L;
+        for (int cell = 1; cell < side * side; cell++) {
+            packed = PackedBoard.set(packed, cell, cell);
+        }
+        return new Goal(packed, side);
+    }
+
+    /**
+     * @param side side length of the board
+     * @return goal with tiles 1..n-1 running left to right on even rows and right to left on odd rows, the blank
+     * ending the snake
+     */
+    public static Goal snake(int side) {
+        PackedBoard.checkSide(side);
+        long packed = 0L;
+        int tile = 1;
+        for (int row = 0; row < side; row++) {
+            for (int i = 0; i < side; i++) {
+                int col = row % 2 == 0 ? i : side - 1 - i;
+                if (tile < side * side) {
+                    packed = PackedBoard.set(packed, row * side + col, tile++);
+                }
+            }
+        }
+        return new Goal(packed, side);
+    }
+
+    /**
+     * @param board packed board
+     * @return true or false as the board is or is not this goal
+     */
+    public boolean isGoal(long board) {
+        return board == packed;
+    }
+
+    /**
+     * @param board packed board
+     * @return true or false as this goal can or cannot be reached from board
+     */
+    public boolean isReachableFrom(long board) {
+        return PackedBoard.isSolvable(board, packed, side);
+    }
+
+    /**
+     * @param tile tile value
+     * @return row-major index of the cell tile belongs in
+     */
+    public int cellOf(int tile) {
+        return PackedBoard.get(cells, tile);
+    }
+
+    /**
+     * @param tile tile value, not the blank
+     * @param cell row-major index of the cell tile stands in
+     * @return taxicab distance of tile from the cell it belongs in
+     */
+    public int distance(int tile, int cell) {
+        return distance[tile * 16 + cell];
+    }
+
+    /**
+     * @param board packed board
+     * @return sum of each tile's distance from its goal cell
+     */
+    public int manhattan(long board) {
+        int sum = 0;
+        for (int cell = side * side - 1; cell >= 0; cell--) {
+            int tile = PackedBoard.get(board, cell);
+            if (tile != 0) {
+                sum += distance[tile * 16 + cell];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return the shared distance table, indexed tile * 16 + cell; callers must not modify it
+     */
+    int[] distances() {
+        return distance;
+    }
+
+    /**
+     * @return packed field
+     */
+    public long getPacked() {
+        return packed;
+    }
+
+    /**
+     * @return side field
+     */
+    public int getSide() {
+        return side;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Goal goal = (Goal) o;
+        return packed == goal.packed && side == goal.side;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed) * 31 + side;
+    }
+
+    @Override
+    public String toString() {
+        return BulkFormat.encode(packed, side);
+    }
+}
@@ -0,0 +1,119 @@
+package eightPuzzle;
+
+import java.util.Arrays;
+
+/**
+ * On-heap {@link ClosedSet}: open addressing with linear probing over parallel primitive arrays
+ */
+public class HeapClosedSet implements ClosedSet {
+    /**
+     * grow once this fraction of the slots is in use
+     */
+    private static final double MAX_LOAD = 0.5;
+
+    private long[] keys;
+    private byte[] depths;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expected number of boards expected to be stored
+     */
+    public HeapClosedSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expected / MAX_LOAD)) - 1) << 1;
+        keys = new long[capacity];
+        depths = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    @Override
+    public int get(long board) {
+        for (int slot = slot(board); ; slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == board) {
+                return depths[slot] & 0xFF;
+            }
+            if (key == 0L) {
+                return ABSENT;
+            }
+        }
+    }
+
+    @Override
+    public void put(long board, int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("HeapClosedSet depth out of range: " + depth);
+        }
+        for (int slot = slot(board); ; slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == board) {
+                depths[slot] = (byte) depth;
+                return;
+            }
+            if (key == 0L) {
+                keys[slot] = board;
+                depths[slot] = (byte) depth;
+                if (++size > keys.length * MAX_LOAD) {
+                    rehash();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+
+    /**
+     * @param board packed board
+     * @return home slot of board
+     */
+    private int slot(long board) {
+        return (int) mix(board) & mask;
+    }
+
+    /**
+     * doubles the table
+     */
+    private void rehash() {
+        long[] oldKeys = keys;
+        byte[] oldDepths = depths;
+        keys = new long[oldKeys.length * 2];
+        depths = new byte[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0L) {
+                int slot = slot(key);
+                while (keys[slot] != 0L) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                depths[slot] = oldDepths[i];
+            }
+        }
+    }
+
+    /**
+     * spreads the nibbles of a packed board over all bits (murmur3 finalizer)
+     *
+     * @param key packed board
+     * @return hash
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
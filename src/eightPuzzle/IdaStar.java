@@ -0,0 +1,130 @@
+package eightPuzzle;
+
+import java.util.ArrayList;
+
+/**
+ * Iterative-deepening A* over packed boards of any supported side length. Memory use is linear in the solution
+ * length, which makes it the solver of choice for 4x4 boards where {@link Solver} would run out of heap.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class IdaStar {
+    /**
+     * all moves, cached to avoid cloning Move.values() at every node
+     */
+    private static final Move[] MOVES = Move.values();
+    /**
+     * bound returned by a search that found the goal
+     */
+    private static final int FOUND = -1;
+    private static final String ALGORITHM = "IDA*";
+
+    private final Goal target;
+    /**
+     * the board being searched, changed in place as the search descends and backtracks
+     */
+    private final MutableBoard board;
+    /**
+     * moves on the current search path
+     */
+    private final Move[] path = new Move[256];
+    private long expansions;
+    private long maxExpansions;
+
+    /**
+     * @param side side length of the boards to solve, towards the standard goal
+     */
+    public IdaStar(int side) {
+        this(Goal.standard(side));
+    }
+
+    /**
+     * @param target goal the boards are solved towards
+     */
+    public IdaStar(Goal target) {
+        this.target = target;
+        this.board = new MutableBoard(target.getPacked(), target);
+    }
+
+    /**
+     * finds an optimal solution
+     *
+     * @param packed        packed board, which must be solvable
+     * @param maxExpansions maximum number of nodes to expand before giving up
+     * @return optimal move list, or null if the budget ran out first
+     */
+    public ArrayList<Move> solve(long packed, long maxExpansions) {
+        if (!target.isReachableFrom(packed)) {
+            throw new IllegalArgumentException("IdaStar.solve() was passed an unsolvable board");
+        }
+        Events.Solve event = Events.beginSolve();
+        this.expansions = 0;
+        this.maxExpansions = maxExpansions;
+        board.set(packed);
+        int bound = board.getManhattan();
+        while (true) {
+            int next = search(0, bound, null);
+            if (next == FOUND) {
+                ArrayList<Move> moves = new ArrayList<>(bound);
+                for (int i = 0; i < bound; i++) {
+                    moves.add(path[i]);
+                }
+                Events.finish(event, packed, target.getSide(), ALGORITHM, Events.MANHATTAN, 1.0, expansions,
+                        expansions, bound, Events.SOLVED);
+                return moves;
+            }
+            if (next == Integer.MAX_VALUE || expansions >= maxExpansions) {
+                Events.budgetAbort(packed, target.getSide(), ALGORITHM, maxExpansions);
+                Events.finish(event, packed, target.getSide(), ALGORITHM, Events.MANHATTAN, 1.0, expansions,
+                        expansions, -1, Events.BUDGET_EXCEEDED);
+                return null;
+            }
+            bound = next;
+        }
+    }
+
+    /**
+     * @return number of nodes expanded by the last call to solve
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * depth-first search below the current board
+     *
+     * @param g     moves made so far
+     * @param bound current cost bound
+     * @param last  move that reached this node, or null at the root
+     * @return FOUND, or the smallest f-value that exceeded the bound
+     */
+    private int search(int g, int bound, Move last) {
+        int f = g + board.getManhattan();
+        if (f > bound) {
+            return f;
+        }
+        if (board.isGoal()) {
+            return FOUND;
+        }
+        if (expansions++ >= maxExpansions) {
+            return Integer.MAX_VALUE;
+        }
+        int min = Integer.MAX_VALUE;
+        for (Move move : MOVES) {
+            if ((last != null && move == last.inverse()) || !board.canMove(move)) {
+                continue;
+            }
+            path[g] = move;
+            board.apply(move);
+            int result = search(g + 1, bound, move);
+            board.undo(move);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            if (result < min) {
+                min = result;
+            }
+        }
+        return min;
+    }
+}
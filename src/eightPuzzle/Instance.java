@@ -0,0 +1,84 @@
+package eightPuzzle;
+
+/**
+ * One puzzle instance of a bulk file: a packed board, its side length and, when known, its optimal distance and a
+ * solution
+ */
+public class Instance {
+    /**
+     * depth value meaning the optimal distance is not known
+     */
+    public static final int UNKNOWN_DEPTH = -1;
+
+    private final long packed;
+    private final int side;
+    private final int depth;
+    private final Solution solution;
+
+    /**
+     * @param packed packed board
+     * @param side   side length of the board
+     * @param depth  optimal number of moves to the goal, or UNKNOWN_DEPTH
+     */
+    public Instance(long packed, int side, int depth) {
+        this(packed, side, depth, null);
+    }
+
+    /**
+     * @param packed   packed board
+     * @param side     side length of the board
+     * @param depth    optimal number of moves to the goal, or UNKNOWN_DEPTH
+     * @param solution moves from the board to the goal, or null
+     */
+    public Instance(long packed, int side, int depth, Solution solution) {
+        PackedBoard.checkSide(side);
+        this.packed = packed;
+        this.side = side;
+        this.depth = depth;
+        this.solution = solution;
+    }
+
+    /**
+     * @param solution moves from the board to the goal
+     * @return copy of this instance carrying solution
+     */
+    public Instance withSolution(Solution solution) {
+        return new Instance(packed, side, depth, solution);
+    }
+
+    /**
+     * @return packed field
+     */
+    public long getPacked() {
+        return packed;
+    }
+
+    /**
+     * @return side field
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * @return depth field
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return solution field, may be null
+     */
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return this instance as a line of a bulk file
+     */
+    @Override
+    public String toString() {
+        return BulkFormat.format(this);
+    }
+}
@@ -10,8 +10,11 @@ import javax.swing.*;
  */
 public class Main {
     public static void main(String[] args) {
-        JFrame game = new FifteenGUI();
-        game.setVisible(true);
-        game.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        //Swing components must be created and touched on the event dispatch thread only
+        SwingUtilities.invokeLater(() -> {
+            JFrame game = new FifteenGUI();
+            game.setVisible(true);
+            game.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        });
     }
 }
\ No newline at end of file
@@ -8,5 +8,21 @@ package eightPuzzle;
  * i.e. the tile that is located UP/DOWN/LEFT/RIGHT from the blank tile was moved onto the blank tile space
  */
 public enum Move {
-    UP, DOWN, LEFT, RIGHT
+    UP, DOWN, LEFT, RIGHT;
+
+    /**
+     * @return the move that undoes this one
+     */
+    public Move inverse() {
+        switch (this) {
+            case UP:
+                return DOWN;
+            case DOWN:
+                return UP;
+            case LEFT:
+                return RIGHT;
+            default:
+                return LEFT;
+        }
+    }
 }
@@ -0,0 +1,199 @@
+package eightPuzzle;
+
+import java.util.SplittableRandom;
+
+/**
+ * Board that changes in place, for depth-first engines and interactive play. {@link #apply(Move)} and
+ * {@link #undo(Move)} are O(1) and keep the blank's cell, a Zobrist hash and the Manhattan distance to the
+ * {@link Goal} up to date incrementally, so nothing is rescanned or allocated per move.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class MutableBoard {
+    private final int side;
+    private final long goal;
+    /**
+     * distance[tile * 16 + cell] is the taxicab distance of tile at cell from its goal cell
+     */
+    private final int[] distance;
+    private long packed;
+    private int blank;
+    private long hash;
+    private int manhattan;
+
+    /**
+     * @param board 3x3 board to copy
+     */
+    public MutableBoard(Board board) {
+        this(board.pack(), 3);
+    }
+
+    /**
+     * @param packed packed board to copy
+     * @param side   side length of the board, measured against the standard goal
+     */
+    public MutableBoard(long packed, int side) {
+        this(packed, Goal.standard(side));
+    }
+
+    /**
+     * @param packed packed board to copy
+     * @param target goal the Manhattan distance and goal test refer to
+     */
+    public MutableBoard(long packed, Goal target) {
+        this.side = target.getSide();
+        this.goal = target.getPacked();
+        this.distance = target.distances();
+        set(packed);
+    }
+
+    /**
+     * replaces the whole board, recomputing the incremental values
+     *
+     * @param packed packed board
+     */
+    public void set(long packed) {
+        this.packed = packed;
+        this.blank = PackedBoard.blank(packed, side);
+        this.hash = 0L;
+        this.manhattan = 0;
+        for (int cell = side * side - 1; cell >= 0; cell--) {
+            int tile = PackedBoard.get(packed, cell);
+            hash ^= Tables.ZOBRIST[tile * 16 + cell];
+            if (tile != 0) {
+                manhattan += distance[tile * 16 + cell];
+            }
+        }
+    }
+
+    /**
+     * @param move move to test
+     * @return true or false as the move does or does not stay on the board
+     */
+    public boolean canMove(Move move) {
+        return PackedBoard.canMove(blank, move, side);
+    }
+
+    /**
+     * slides the tile next to the blank, in the direction of move, into the blank
+     *
+     * @param move move to make
+     * @throws IllegalArgumentException if the move would leave the board
+     */
+    public void apply(Move move) {
+        if (!PackedBoard.canMove(blank, move, side)) {
+            throw new IllegalArgumentException("Cannot move " + move + " with the blank at cell " + blank);
+        }
+        int target = PackedBoard.target(blank, move, side);
+        int tile = PackedBoard.get(packed, target);
+        manhattan += distance[tile * 16 + blank] - distance[tile * 16 + target];
+        hash ^= Tables.ZOBRIST[tile * 16 + target] ^ Tables.ZOBRIST[tile * 16 + blank]
+                ^ Tables.ZOBRIST[target] ^ Tables.ZOBRIST[blank];
+        packed = PackedBoard.slide(packed, blank, target);
+        blank = target;
+    }
+
+    /**
+     * takes back a move made with {@link #apply(Move)}
+     *
+     * @param move the move to take back
+     */
+    public void undo(Move move) {
+        apply(move.inverse());
+    }
+
+    /**
+     * @param cell row-major index of a cell, e.g. a clicked tile
+     * @return the move that slides the tile at cell into the blank, or null if the cell is not next to the blank
+     */
+    public Move moveFrom(int cell) {
+        int diff = cell - blank;
+        if (diff == -side) {
+            return Move.UP;
+        }
+        if (diff == side) {
+            return Move.DOWN;
+        }
+        if (diff == -1 && blank % side > 0) {
+            return Move.LEFT;
+        }
+        if (diff == 1 && blank % side < side - 1) {
+            return Move.RIGHT;
+        }
+        return null;
+    }
+
+    /**
+     * @return packed board
+     */
+    public long getPacked() {
+        return packed;
+    }
+
+    /**
+     * @return row-major index of the blank tile
+     */
+    public int getBlank() {
+        return blank;
+    }
+
+    /**
+     * @return Zobrist hash of the board
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return sum of each tile's distance from its goal cell
+     */
+    public int getManhattan() {
+        return manhattan;
+    }
+
+    /**
+     * @return side field
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * @return true or false as the board is or is not the goal
+     */
+    public boolean isGoal() {
+        return packed == goal;
+    }
+
+    /**
+     * @return copy of this board as an immutable 3x3 Board
+     */
+    public Board toBoard() {
+        if (side != 3) {
+            throw new IllegalStateException("Board only supports 3x3 layouts");
+        }
+        return new Board(packed);
+    }
+
+    @Override
+    public String toString() {
+        return BulkFormat.encode(packed, side);
+    }
+
+    /**
+     * Zobrist keys, built on first use and shared by all boards
+     */
+    private static final class Tables {
+        /**
+         * ZOBRIST[tile * 16 + cell] is the random key of tile standing at cell
+         */
+        private static final long[] ZOBRIST = new long[16 * 16];
+
+        static {
+            SplittableRandom random = new SplittableRandom(0x5EED_B0A2DL);
+            for (int i = 0; i < ZOBRIST.length; i++) {
+                ZOBRIST[i] = random.nextLong();
+            }
+        }
+    }
+}
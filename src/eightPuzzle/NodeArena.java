@@ -0,0 +1,146 @@
+package eightPuzzle;
+
+import java.util.Arrays;
+
+/**
+ * Growable struct-of-arrays storage for search nodes. A node is an int index into parallel primitive arrays
+ * holding its packed board, its number of moves from the root, its parent's index and the move that reached it,
+ * so a search allocates nothing per node and can be reset and reused between solves. Depths are kept as shorts,
+ * up to {@link #MAX_DEPTH} moves.
+ */
+public class NodeArena {
+    /**
+     * parent index of a root node
+     */
+    public static final int NO_PARENT = -1;
+    /**
+     * move ordinal of a root node
+     */
+    public static final byte NO_MOVE = -1;
+    /**
+     * largest number of moves from the root a node may have
+     */
+    public static final int MAX_DEPTH = Short.MAX_VALUE;
+
+    private long[] boards;
+    private short[] depths;
+    private int[] parents;
+    private byte[] moves;
+    private int size;
+
+    /**
+     * @param capacity initial number of nodes
+     */
+    public NodeArena(int capacity) {
+        capacity = Math.max(capacity, 16);
+        boards = new long[capacity];
+        depths = new short[capacity];
+        parents = new int[capacity];
+        moves = new byte[capacity];
+    }
+
+    /**
+     * stores a node
+     *
+     * @param board  packed board
+     * @param depth  number of moves from the root
+     * @param parent index of the parent node, or NO_PARENT
+     * @param move   ordinal of the move from the parent, or NO_MOVE
+     * @return index of the new node
+     * @throws IllegalArgumentException if depth is negative or above MAX_DEPTH
+     */
+    public int add(long board, int depth, int parent, int move) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("NodeArena depth out of range: " + depth);
+        }
+        if (size == boards.length) {
+            grow();
+        }
+        boards[size] = board;
+        depths[size] = (short) depth;
+        parents[size] = parent;
+        moves[size] = (byte) move;
+        return size++;
+    }
+
+    /**
+     * forgets every node while keeping the arrays for the next search
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return number of nodes stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of nodes that fit before the arrays grow
+     */
+    public int capacity() {
+        return boards.length;
+    }
+
+    /**
+     * @param node node index
+     * @return packed board of node
+     */
+    public long board(int node) {
+        return boards[node];
+    }
+
+    /**
+     * @param node node index
+     * @return number of moves from the root to node
+     */
+    public int depth(int node) {
+        return depths[node];
+    }
+
+    /**
+     * @param node node index
+     * @return index of the parent node, or NO_PARENT for a root
+     */
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @param node node index
+     * @return ordinal of the move that reached node, or NO_MOVE for a root
+     */
+    public int move(int node) {
+        return moves[node];
+    }
+
+    /**
+     * @param node node index
+     * @return moves from the root to node
+     */
+    public Move[] path(int node) {
+        Move[] path = new Move[depth(node)];
+        Move[] values = Move.values();
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = values[moves[node]];
+            node = parents[node];
+        }
+        return path;
+    }
+
+    /**
+     * doubles the capacity of every array
+     */
+    private void grow() {
+        int capacity = boards.length * 2;
+        if (capacity < 0) {
+            throw new IllegalStateException("NodeArena is full");
+        }
+        boards = Arrays.copyOf(boards, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+    }
+}
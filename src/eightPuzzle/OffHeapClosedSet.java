@@ -0,0 +1,220 @@
+package eightPuzzle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link ClosedSet} kept outside the Java heap, so searches can visit more states than -Xmx allows and the table
+ * adds nothing to garbage collection work.
+ * <p>
+ * The table is a fixed-size open-addressing hash with linear probing, 9 bytes per slot (an 8-byte packed board and
+ * a 1-byte depth), sized to the largest power of two that fits the memory budget. Slots live in direct buffers or,
+ * when a spill file is given, in memory-mapped regions of that file so the operating system can page them out.
+ * Buffers are split into segments because a single buffer is limited to 2 GB.
+ * <p>
+ * Only the closed set leaves the heap. The {@link NodeArena} and {@link BucketQueue} of a search stay on it and
+ * grow with every queued node, so -Xmx still bounds a search that queues many nodes per board it closes.
+ */
+public class OffHeapClosedSet implements ClosedSet, AutoCloseable {
+    /**
+     * bytes used per slot: packed board plus depth
+     */
+    public static final int BYTES_PER_SLOT = Long.BYTES + 1;
+    /**
+     * slots per segment; 2^27 keys make a 1 GB buffer
+     */
+    private static final int SEGMENT_SHIFT = 27;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+    /**
+     * refuse new boards once this fraction of the slots is in use, as probe sequences grow quickly beyond it
+     */
+    private static final double MAX_LOAD = 0.8;
+
+    private final ByteBuffer[] keys;
+    private final ByteBuffer[] depths;
+    private final long mask;
+    private final long limit;
+    private final Path spillFile;
+    private final FileChannel channel;
+    private long size;
+
+    /**
+     * creates a table in direct memory
+     *
+     * @param memoryBudget maximum number of bytes to use
+     */
+    public OffHeapClosedSet(long memoryBudget) {
+        this(memoryBudget, null);
+    }
+
+    /**
+     * creates a table, memory-mapped onto a spill file if one is given
+     *
+     * @param memoryBudget maximum number of bytes to use
+     * @param spillFile    file to map the table onto, created or truncated and deleted on close; or null for
+     *                     direct memory
+     */
+    public OffHeapClosedSet(long memoryBudget, Path spillFile) {
+        long slots = Long.highestOneBit(memoryBudget / BYTES_PER_SLOT);
+        if (slots < 16) {
+            throw new IllegalArgumentException("OffHeapClosedSet memory budget is too small: " + memoryBudget);
+        }
+        this.mask = slots - 1;
+        this.limit = (long) (slots * MAX_LOAD);
+        this.spillFile = spillFile;
+
+        int segmentSlots = (int) Math.min(slots, 1L << SEGMENT_SHIFT);
+        int segments = (int) (slots / segmentSlots);
+        keys = new ByteBuffer[segments];
+        depths = new ByteBuffer[segments];
+        channel = spillFile == null ? null : open(spillFile);
+        boolean allocated = false;
+        try {
+            long offset = 0;
+            for (int i = 0; i < segments; i++) {
+                keys[i] = allocate(offset, (long) segmentSlots * Long.BYTES);
+                offset += (long) segmentSlots * Long.BYTES;
+                depths[i] = allocate(offset, segmentSlots);
+                offset += segmentSlots;
+            }
+            allocated = true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not map closed set onto " + spillFile, ex);
+        } finally {
+            if (!allocated) {
+                try {
+                    close();
+                } catch (UncheckedIOException ex) {
+                    //the allocation failure is the one worth reporting
+                }
+            }
+        }
+    }
+
+    @Override
+    public int get(long board) {
+        for (long slot = slot(board); ; slot = (slot + 1) & mask) {
+            long key = key(slot);
+            if (key == board) {
+                return depths[segment(slot)].get(offset(slot)) & 0xFF;
+            }
+            if (key == 0L) {
+                return ABSENT;
+            }
+        }
+    }
+
+    @Override
+    public void put(long board, int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("OffHeapClosedSet depth out of range: " + depth);
+        }
+        for (long slot = slot(board); ; slot = (slot + 1) & mask) {
+            long key = key(slot);
+            if (key == board) {
+                depths[segment(slot)].put(offset(slot), (byte) depth);
+                return;
+            }
+            if (key == 0L) {
+                if (size >= limit) {
+                    throw new IllegalStateException("OffHeapClosedSet is full; raise its memory budget");
+                }
+                keys[segment(slot)].putLong(offset(slot) * Long.BYTES, board);
+                depths[segment(slot)].put(offset(slot), (byte) depth);
+                size++;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return number of boards that fit before the table refuses new ones
+     */
+    public long capacity() {
+        return limit;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        for (ByteBuffer segment : keys) {
+            for (int i = 0; i < segment.capacity(); i += Long.BYTES) {
+                segment.putLong(i, 0L);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * releases the spill file; the direct or mapped memory is returned once the buffers are collected
+     */
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not remove closed set spill file " + spillFile, ex);
+        }
+    }
+
+    /**
+     * @param spillFile file to map the table onto
+     * @return channel of the file, created or truncated
+     */
+    private static FileChannel open(Path spillFile) {
+        try {
+            return FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open closed set spill file " + spillFile, ex);
+        }
+    }
+
+    /**
+     * @param offset byte offset of the region within the spill file
+     * @param bytes  size of the region
+     * @return zeroed buffer in native byte order
+     * @throws IOException if the region cannot be mapped
+     */
+    private ByteBuffer allocate(long offset, long bytes) throws IOException {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+        return mapped.order(ByteOrder.nativeOrder());
+    }
+
+    private long key(long slot) {
+        return keys[segment(slot)].getLong(offset(slot) * Long.BYTES);
+    }
+
+    private long slot(long board) {
+        return HeapClosedSet.mix(board) & mask;
+    }
+
+    private static int segment(long slot) {
+        return (int) (slot >>> SEGMENT_SHIFT);
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot & SEGMENT_MASK);
+    }
+}
@@ -0,0 +1,245 @@
+package eightPuzzle;
+
+/**
+ * Static helpers for the packed representation of a board: a single long holding one 4-bit cell per nibble,
+ * cell i (in row-major order) occupying bits [4i, 4i + 4). A 0 nibble is the blank tile.
+ * <p>
+ * Side lengths 3 (36 bits used) and 4 (all 64 bits used) are supported.
+ */
+public final class PackedBoard {
+    /**
+     * largest supported side length; 16 nibbles fill a long
+     */
+    public static final int MAX_SIDE = 4;
+
+    private PackedBoard() {
+    }
+
+    /**
+     * packs a square 2d-array of tiles
+     *
+     * @param tiles the tiles to be packed
+     * @return packed board
+     */
+    public static long pack(int[][] tiles) {
+        int side = tiles.length;
+        checkSide(side);
+        long packed = 0L;
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                packed |= ((long) tiles[i][j] & 0xF) << (4 * (i * side + j));
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * unpacks a board into a new 2d-array of tiles
+     *
+     * @param packed packed board
+     * @param side   side length of the board
+     * @return {row}{col} array of tiles
+     */
+    public static int[][] unpack(long packed, int side) {
+        checkSide(side);
+        int[][] tiles = new int[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                tiles[i][j] = get(packed, i * side + j);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * @param packed packed board
+     * @param cell   row-major cell index
+     * @return tile value at cell
+     */
+    public static int get(long packed, int cell) {
+        return (int) (packed >>> (4 * cell)) & 0xF;
+    }
+
+    /**
+     * @param packed packed board
+     * @param cell   row-major cell index
+     * @param value  tile value to store at cell
+     * @return packed board with cell replaced
+     */
+    public static long set(long packed, int cell, int value) {
+        int shift = 4 * cell;
+        return (packed & ~(0xFL << shift)) | (((long) value & 0xF) << shift);
+    }
+
+    /**
+     * swaps the contents of two cells
+     *
+     * @param packed packed board
+     * @param a      first cell index
+     * @param b      second cell index
+     * @return packed board with the two cells exchanged
+     */
+    public static long swap(long packed, int a, int b) {
+        int va = get(packed, a);
+        int vb = get(packed, b);
+        return set(set(packed, a, vb), b, va);
+    }
+
+    /**
+     * @param blank row-major index of the blank tile
+     * @param move  move to test
+     * @param side  side length of the board
+     * @return true or false as the move does or does not stay on the board
+     */
+    public static boolean canMove(int blank, Move move, int side) {
+        switch (move) {
+            case UP:
+                return blank >= side;
+            case DOWN:
+                return blank < side * (side - 1);
+            case LEFT:
+                return blank % side > 0;
+            case RIGHT:
+                return blank % side < side - 1;
+            default:
+                throw new IllegalArgumentException("Bad argument passed to PackedBoard.canMove()");
+        }
+    }
+
+    /**
+     * @param blank row-major index of the blank tile
+     * @param move  move to make, which must be possible, see {@link #canMove(int, Move, int)}
+     * @param side  side length of the board
+     * @return row-major index of the tile that slides into the blank, i.e. where the blank ends up
+     */
+    public static int target(int blank, Move move, int side) {
+        switch (move) {
+            case UP:
+                return blank - side;
+            case DOWN:
+                return blank + side;
+            case LEFT:
+                return blank - 1;
+            case RIGHT:
+                return blank + 1;
+            default:
+                throw new IllegalArgumentException("Bad argument passed to PackedBoard.target()");
+        }
+    }
+
+    /**
+     * slides the tile at target into the blank cell
+     *
+     * @param packed packed board
+     * @param blank  row-major index of the blank tile
+     * @param target row-major index of a cell adjacent to the blank
+     * @return packed board after the move
+     */
+    public static long slide(long packed, int blank, int target) {
+        int shift = 4 * target;
+        long tile = (packed >>> shift) & 0xF;
+        return (packed & ~(0xFL << shift)) | (tile << (4 * blank));
+    }
+
+    /**
+     * finds the blank cell
+     *
+     * @param packed packed board
+     * @param side   side length of the board
+     * @return row-major index of the blank tile, or -1 if there is none
+     */
+    public static int blank(long packed, int side) {
+        int cells = side * side;
+        for (int i = 0; i < cells; i++) {
+            if ((packed & (0xFL << (4 * i))) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param side side length of the board
+     * @return packed board with tiles 1..n-1 in row-major order and the blank in the last cell
+     */
+    public static long goal(int side) {
+        checkSide(side);
+        int cells = side * side;
+        long packed = 0L;
+        for (int i = 0; i < cells - 1; i++) {
+            packed = set(packed, i, i + 1);
+        }
+        return packed;
+    }
+
+    /**
+     * inverts a packed board: nibble t of the result is the cell holding tile t
+     *
+     * @param packed packed board
+     * @param side   side length of the board
+     * @return packed tile-to-cell table
+     */
+    public static long invert(long packed, int side) {
+        int cells = side * side;
+        long inverse = 0L;
+        for (int i = 0; i < cells; i++) {
+            inverse = set(inverse, get(packed, i), i);
+        }
+        return inverse;
+    }
+
+    /**
+     * determines whether a board can reach the standard goal board
+     *
+     * @param packed packed board
+     * @param side   side length of the board
+     * @return true or false as the board is or is not solvable
+     */
+    public static boolean isSolvable(long packed, int side) {
+        return isSolvable(packed, goal(side), side);
+    }
+
+    /**
+     * Determines whether one board can reach another. A board is reachable exactly when the parity of the
+     * permutation taking it to the target equals the parity of the blank's taxicab distance, since every move is
+     * one transposition that moves the blank one cell. Parity is read off the cycle count of the permutation, so
+     * the check is linear in the number of cells and allocates nothing.
+     *
+     * @param packed packed board
+     * @param target packed target board
+     * @param side   side length of the board
+     * @return true or false as target is or is not reachable from packed
+     */
+    public static boolean isSolvable(long packed, long target, int side) {
+        int cells = side * side;
+        long targetCell = invert(target, side);
+        int visited = 0;
+        int cycles = 0;
+        for (int start = 0; start < cells; start++) {
+            if ((visited & (1 << start)) != 0) {
+                continue;
+            }
+            cycles++;
+            int cell = start;
+            while ((visited & (1 << cell)) == 0) {
+                visited |= 1 << cell;
+                cell = get(targetCell, get(packed, cell));
+            }
+        }
+        int permutationParity = (cells - cycles) & 1;
+
+        int from = blank(packed, side);
+        int to = get(targetCell, 0);
+        int blankDistance = Math.abs(from / side - to / side) + Math.abs(from % side - to % side);
+        return permutationParity == (blankDistance & 1);
+    }
+
+    /**
+     * @param side side length to validate
+     */
+    static void checkSide(int side) {
+        if (side < 2 || side > MAX_SIDE) {
+            throw new IllegalArgumentException("Unsupported board side length: " + side);
+        }
+    }
+}
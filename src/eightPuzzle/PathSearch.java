@@ -0,0 +1,297 @@
+package eightPuzzle;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A* between arbitrary boards that keeps its search tree between queries from the same start board.
+ * <p>
+ * Each query heads for the nearest of one or more targets, guided by the smallest Manhattan distance to any of
+ * them; a minimum of consistent heuristics is itself consistent, so every expanded node keeps its optimal move count
+ * whatever targets later queries ask for. A new query from the same start therefore only re-keys the frontier under
+ * its own heuristic and continues from there: boards already expanded are answered without further search and
+ * the shared prefix of the tree is never expanded twice. A query from a different start clears the tree.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class PathSearch {
+    /**
+     * all moves, cached to avoid cloning Move.values() at every node
+     */
+    private static final Move[] MOVES = Move.values();
+    /**
+     * node index meaning no node
+     */
+    private static final int NONE = -1;
+    /**
+     * open list size of the first flight recorder milestone
+     */
+    private static final int FIRST_MILESTONE = 1 << 10;
+    private static final String ALGORITHM = "path A*";
+
+    private final int side;
+    private final NodeArena arena = new NodeArena(1 << 12);
+    private final BucketQueue open = new BucketQueue();
+    /**
+     * board to the node reaching it in the fewest known moves
+     */
+    private final NodeIndex best = new NodeIndex(1 << 12);
+    /**
+     * nodes whose children have been generated
+     */
+    private final BitSet expanded = new BitSet();
+    private long start;
+    /**
+     * targets of the current query
+     */
+    private Goal[] goals = new Goal[0];
+    private long expansions;
+
+    /**
+     * @param side side length of the boards to search
+     */
+    public PathSearch(int side) {
+        PackedBoard.checkSide(side);
+        this.side = side;
+    }
+
+    /**
+     * finds an optimal path between two boards
+     *
+     * @param from          packed start board
+     * @param to            packed target board, which must be reachable from from
+     * @param maxExpansions maximum number of nodes to expand in this query before giving up
+     * @return optimal moves, or null if the budget ran out first
+     */
+    public Move[] solve(long from, long to, long maxExpansions) {
+        return solve(from, new long[]{to}, maxExpansions);
+    }
+
+    /**
+     * finds an optimal path to the nearest of several boards; targets that cannot be reached are ignored
+     *
+     * @param from          packed start board
+     * @param targets       packed target boards, at least one reachable from from
+     * @param maxExpansions maximum number of nodes to expand in this query before giving up
+     * @return optimal moves to the nearest target, or null if the budget ran out first
+     */
+    public Move[] solve(long from, long[] targets, long maxExpansions) {
+        Goal[] reachable = new Goal[targets.length];
+        int count = 0;
+        for (long target : targets) {
+            Goal goal = Goal.of(target, side);
+            if (goal.isReachableFrom(from)) {
+                reachable[count++] = goal;
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("PathSearch was passed no target reachable from the start board");
+        }
+        Events.Solve event = Events.beginSolve();
+        goals = Arrays.copyOf(reachable, count);
+        expansions = 0;
+        if (arena.size() == 0 || from != start) {
+            restart(from);
+        }
+        int milestone = Math.max(FIRST_MILESTONE, Integer.highestOneBit(open.size()) << 1);
+
+        //nearest target that already has its optimal move count
+        int found = NONE;
+        for (Goal goal : goals) {
+            int node = best.get(goal.getPacked());
+            if (node != NONE && expanded.get(node) && (found == NONE || arena.depth(node) < arena.depth(found))) {
+                found = node;
+            }
+        }
+        //the frontier stays valid under the new heuristic once re-keyed
+        for (int node : open.drain()) {
+            if (isLive(node)) {
+                open.push(node, arena.depth(node) + heuristic(arena.board(node)));
+            }
+        }
+
+        while (!open.isEmpty() && (found == NONE || open.peekPriority() < arena.depth(found))) {
+            int node = open.pop();
+            if (!isLive(node)) {
+                continue;
+            }
+            long board = arena.board(node);
+            int g = arena.depth(node);
+            if (isTarget(board)) {
+                //popped with h = 0, so g is optimal; leave it on the frontier for later queries
+                open.push(node, g);
+                found = node;
+                break;
+            }
+            if (expansions++ >= maxExpansions) {
+                open.push(node, g + heuristic(board));
+                Events.budgetAbort(from, side, ALGORITHM, maxExpansions);
+                Events.finish(event, from, side, ALGORITHM, Events.MANHATTAN, 1.0, expansions, arena.size(), -1,
+                        Events.BUDGET_EXCEEDED);
+                return null;
+            }
+            expanded.set(node);
+            int blank = PackedBoard.blank(board, side);
+            for (Move move : MOVES) {
+                if (!PackedBoard.canMove(blank, move, side)) {
+                    continue;
+                }
+                long child = PackedBoard.slide(board, blank, PackedBoard.target(blank, move, side));
+                int known = best.get(child);
+                if (known != NONE && arena.depth(known) <= g + 1) {
+                    continue;
+                }
+                int index = arena.add(child, g + 1, node, move.ordinal());
+                best.put(child, index);
+                open.push(index, g + 1 + heuristic(child));
+            }
+            if (open.size() >= milestone) {
+                milestone = Events.openListMilestone(ALGORITHM, open.size(), expansions);
+            }
+        }
+        if (found == NONE) {
+            throw new IllegalStateException("PathSearch exhausted the state space without reaching a target");
+        }
+        Move[] path = arena.path(found);
+        Events.finish(event, from, side, ALGORITHM, Events.MANHATTAN, 1.0, expansions, arena.size(), path.length,
+                Events.SOLVED);
+        return path;
+    }
+
+    /**
+     * @return number of nodes expanded by the last query
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * @return number of nodes kept for later queries
+     */
+    public int getTreeSize() {
+        return arena.size();
+    }
+
+    /**
+     * forgets the search tree, e.g. to release memory
+     */
+    public void clear() {
+        arena.reset();
+        open.clear();
+        best.clear();
+        expanded.clear();
+    }
+
+    /**
+     * clears the tree and roots a new one at from
+     *
+     * @param from packed start board
+     */
+    private void restart(long from) {
+        clear();
+        start = from;
+        int root = arena.add(from, 0, NodeArena.NO_PARENT, NodeArena.NO_MOVE);
+        best.put(from, root);
+        open.push(root, 0);
+    }
+
+    /**
+     * @return true or false as node is or is not the best unexpanded node of its board
+     */
+    private boolean isLive(int node) {
+        return best.get(arena.board(node)) == node && !expanded.get(node);
+    }
+
+    /**
+     * @return true or false as board is or is not a target of the current query
+     */
+    private boolean isTarget(long board) {
+        for (Goal goal : goals) {
+            if (goal.isGoal(board)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return smallest Manhattan distance from board to any target of the current query
+     */
+    private int heuristic(long board) {
+        int min = Integer.MAX_VALUE;
+        for (Goal goal : goals) {
+            min = Math.min(min, goal.manhattan(board));
+        }
+        return min;
+    }
+
+    /**
+     * open-addressing map from packed boards to node indices, with linear probing over parallel primitive arrays
+     */
+    private static final class NodeIndex {
+        private static final double MAX_LOAD = 0.5;
+
+        private long[] keys;
+        private int[] nodes;
+        private int mask;
+        private int size;
+
+        private NodeIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, (int) (expected / MAX_LOAD)) - 1) << 1;
+            keys = new long[capacity];
+            nodes = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private int get(long board) {
+            for (int slot = (int) HeapClosedSet.mix(board) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == board) {
+                    return nodes[slot];
+                }
+                if (keys[slot] == 0L) {
+                    return NONE;
+                }
+            }
+        }
+
+        private void put(long board, int node) {
+            for (int slot = (int) HeapClosedSet.mix(board) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == board) {
+                    nodes[slot] = node;
+                    return;
+                }
+                if (keys[slot] == 0L) {
+                    keys[slot] = board;
+                    nodes[slot] = node;
+                    if (++size > keys.length * MAX_LOAD) {
+                        rehash();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(keys, 0L);
+            size = 0;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldNodes = nodes;
+            keys = new long[oldKeys.length * 2];
+            nodes = new int[oldKeys.length * 2];
+            mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0L) {
+                    int slot = (int) HeapClosedSet.mix(oldKeys[i]) & mask;
+                    while (keys[slot] != 0L) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    nodes[slot] = oldNodes[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package eightPuzzle;
+
+/**
+ * Dense bijections between boards and integers, so precomputed tables can be plain arrays indexed without hashing.
+ * <p>
+ * A board of n cells is a permutation of the tiles 0..n-1 and its rank is the Lehmer code of that permutation, read
+ * as a factorial-base number in [0, n!). A partial permutation, the cells holding a chosen sequence of k tiles as
+ * used by pattern databases, is ranked the same way in a falling-factorial base in [0, n!/(n-k)!).
+ * <p>
+ * Both directions are linear in the number of cells: ranking counts already-used smaller elements with a single
+ * popcount, and unranking picks the d-th unused element with a precomputed select table instead of a scan.
+ */
+public final class PermutationRank {
+    /**
+     * FACTORIALS[i] is i!
+     */
+    private static final long[] FACTORIALS = new long[17];
+    /**
+     * FALLING[n][k] is n!/(n-k)!, the number of partial permutations of k out of n elements
+     */
+    private static final long[][] FALLING = new long[17][17];
+    /**
+     * SELECT[mask] holds, in nibble d, the index of the d-th set bit of the 8-bit mask; kept to one byte so the
+     * table stays in L1 cache
+     */
+    private static final long[] SELECT = new long[1 << 8];
+
+    static {
+        FACTORIALS[0] = 1;
+        for (int i = 1; i < FACTORIALS.length; i++) {
+            FACTORIALS[i] = FACTORIALS[i - 1] * i;
+        }
+        for (int n = 0; n < FALLING.length; n++) {
+            FALLING[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                FALLING[n][k] = FALLING[n][k - 1] * (n - k + 1);
+            }
+        }
+        for (int mask = 1; mask < SELECT.length; mask++) {
+            long select = 0;
+            int d = 0;
+            for (int bit = 0; bit < 8; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    select |= (long) bit << (4 * d++);
+                }
+            }
+            SELECT[mask] = select;
+        }
+    }
+
+    private PermutationRank() {
+    }
+
+    /**
+     * @param n number of elements, at most 16
+     * @return n!
+     */
+    public static long factorial(int n) {
+        return FACTORIALS[n];
+    }
+
+    /**
+     * @param n number of elements, at most 16
+     * @param k number of elements placed, at most n
+     * @return number of partial permutations of k out of n elements, n!/(n-k)!
+     */
+    public static long partialCount(int n, int k) {
+        return FALLING[n][k];
+    }
+
+    /**
+     * @param packed packed board
+     * @param cells  number of cells on the board
+     * @return rank of the board in [0, cells!)
+     */
+    public static long rank(long packed, int cells) {
+        long rank = 0;
+        int used = 0;
+        for (int i = 0; i < cells; i++) {
+            int tile = (int) (packed >>> (4 * i)) & 0xF;
+            //tiles smaller than this one that are still unused
+            int smaller = tile - Integer.bitCount(used & ((1 << tile) - 1));
+            rank += smaller * FACTORIALS[cells - 1 - i];
+            used |= 1 << tile;
+        }
+        return rank;
+    }
+
+    /**
+     * @param rank  rank in [0, cells!)
+     * @param cells number of cells on the board
+     * @return packed board of that rank
+     */
+    public static long unrank(long rank, int cells) {
+        long packed = 0L;
+        int unused = (1 << cells) - 1;
+        int i = 0;
+        //the remainder is below (cells - i)!, so once 12! bounds it the cheaper int division suffices
+        for (; cells - i > 12; i++) {
+            long weight = FACTORIALS[cells - 1 - i];
+            int digit = (int) (rank / weight);
+            rank -= digit * weight;
+            int tile = select(unused, digit);
+            unused &= ~(1 << tile);
+            packed |= (long) tile << (4 * i);
+        }
+        int small = (int) rank;
+        for (; i < cells; i++) {
+            int weight = (int) FACTORIALS[cells - 1 - i];
+            int digit = small / weight;
+            small -= digit * weight;
+            int tile = select(unused, digit);
+            unused &= ~(1 << tile);
+            packed |= (long) tile << (4 * i);
+        }
+        return packed;
+    }
+
+    /**
+     * ranks the cells holding a sequence of tiles, e.g. the pattern tiles of a pattern database
+     *
+     * @param packed packed board
+     * @param tiles  distinct tiles whose cells are ranked, in order
+     * @param cells  number of cells on the board
+     * @return rank in [0, partialCount(cells, tiles.length))
+     */
+    public static long rankPartial(long packed, int[] tiles, int cells) {
+        long cellOf = 0L;
+        for (int cell = 0; cell < cells; cell++) {
+            cellOf |= (long) cell << (4 * ((packed >>> (4 * cell)) & 0xF));
+        }
+        long rank = 0;
+        int used = 0;
+        int k = tiles.length;
+        for (int i = 0; i < k; i++) {
+            int cell = (int) (cellOf >>> (4 * tiles[i])) & 0xF;
+            int smaller = cell - Integer.bitCount(used & ((1 << cell) - 1));
+            rank += smaller * FALLING[cells - 1 - i][k - 1 - i];
+            used |= 1 << cell;
+        }
+        return rank;
+    }
+
+    /**
+     * inverse of {@link #rankPartial(long, int[], int)}
+     *
+     * @param rank      rank in [0, partialCount(cells, positions.length))
+     * @param cells     number of cells on the board
+     * @param positions receives the cell of each pattern tile, in pattern order
+     */
+    public static void unrankPartial(long rank, int cells, int[] positions) {
+        int unused = (1 << cells) - 1;
+        int k = positions.length;
+        for (int i = 0; i < k; i++) {
+            long weight = FALLING[cells - 1 - i][k - 1 - i];
+            int digit = (int) (rank / weight);
+            rank -= digit * weight;
+            int cell = select(unused, digit);
+            unused &= ~(1 << cell);
+            positions[i] = cell;
+        }
+    }
+
+    /**
+     * ranks a range of packed boards
+     *
+     * @param packed boards to rank
+     * @param cells  number of cells on each board
+     * @param ranks  receives the rank of packed[i] at ranks[i]
+     * @param from   first index, inclusive
+     * @param to     last index, exclusive
+     */
+    public static void rankAll(long[] packed, int cells, long[] ranks, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ranks[i] = rank(packed[i], cells);
+        }
+    }
+
+    /**
+     * unranks a range of ranks
+     *
+     * @param ranks  ranks to unrank
+     * @param cells  number of cells on each board
+     * @param packed receives the board of ranks[i] at packed[i]
+     * @param from   first index, inclusive
+     * @param to     last index, exclusive
+     */
+    public static void unrankAll(long[] ranks, int cells, long[] packed, int from, int to) {
+        for (int i = from; i < to; i++) {
+            packed[i] = unrank(ranks[i], cells);
+        }
+    }
+
+    /**
+     * @param mask  16-bit mask
+     * @param index which set bit to find, counting from 0
+     * @return position of that set bit
+     */
+    private static int select(int mask, int index) {
+        int low = mask & 0xFF;
+        int lowCount = Integer.bitCount(low);
+        if (index < lowCount) {
+            return (int) (SELECT[low] >>> (4 * index)) & 0xF;
+        }
+        return 8 + ((int) (SELECT[mask >>> 8] >>> (4 * (index - lowCount))) & 0xF);
+    }
+}
@@ -0,0 +1,320 @@
+package eightPuzzle;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Correctness and performance regression check, meant to be run by the build after every change to a solver,
+ * heuristic or queue.
+ * <p>
+ * Exact distances of the whole 3x3 space come from {@link StateSpaceBfs}. Against them the check proves the
+ * Manhattan tables admissible and consistent on every board, for every {@link Goal} layout provided, and confirms
+ * the incremental distance of {@link MutableBoard}. It then runs a fixed, seeded corpus through every solver mode,
+ * asserting optimal lengths (or the promised bound) and valid move sequences, and totals each mode's node
+ * expansions. Totals are compared with a baseline file; a mode doing more than {@link #TOLERANCE} extra work fails
+ * the check just like a wrong answer, and the process exits with status 1.
+ */
+public class RegressionCheck {
+    /**
+     * fraction by which a mode may exceed its baseline expansions
+     */
+    private static final double TOLERANCE = 0.10;
+    private static final long CORPUS_SEED = 0x1410_0009L;
+    private static final int CORPUS_SIZE = 200;
+    private static final int LARGE_DEPTH = 30;
+    private static final int LARGE_SIZE = 8;
+    private static final double WEIGHT = 2.0;
+    private static final int BEAM_WIDTH = 64;
+    private static final String DEFAULT_BASELINES = "regression-baselines.txt";
+
+    /**
+     * distance of every 3x3 board from the standard goal, by permutation rank; -1 for unreachable ranks
+     */
+    private final byte[] distances = new byte[(int) PermutationRank.factorial(9)];
+    /**
+     * mode name to total node expansions over the corpus, in run order
+     */
+    private final Map<String, Long> expansions = new LinkedHashMap<>();
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * runs every check except the baseline comparison
+     */
+    public void run() {
+        Arrays.fill(distances, (byte) -1);
+        StateSpaceBfs bfs = new StateSpaceBfs(3, Runtime.getRuntime().availableProcessors());
+        try {
+            bfs.inMemory(distances);
+        } finally {
+            bfs.shutdown();
+        }
+        checkHeuristics();
+        checkSmallCorpus();
+        checkLargeCorpus();
+    }
+
+    /**
+     * @return total expansions of each mode, in run order
+     */
+    public Map<String, Long> getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * @return description of every failed assertion
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * admissibility against the exact distances and consistency across every move, over the full 3x3 space
+     */
+    private void checkHeuristics() {
+        Goal standard = Goal.standard(3);
+        for (Goal goal : new Goal[]{standard, Goal.blankFirst(3), Goal.snake(3)}) {
+            if (goal.manhattan(goal.getPacked()) != 0) {
+                fail("heuristic", "nonzero at goal " + goal);
+            }
+            for (int rank = 0; rank < distances.length; rank++) {
+                long board = PermutationRank.unrank(rank, 9);
+                int h = goal.manhattan(board);
+                if (goal == standard && distances[rank] >= 0 && h > distances[rank]) {
+                    fail("heuristic", "inadmissible on " + BulkFormat.encode(board, 3) + ": " + h + " > "
+                            + distances[rank]);
+                }
+                MutableBoard mutable = new MutableBoard(board, goal);
+                if (mutable.getManhattan() != h) {
+                    fail("heuristic", "MutableBoard disagrees on " + BulkFormat.encode(board, 3));
+                }
+                for (Move move : Move.values()) {
+                    if (!mutable.canMove(move)) {
+                        continue;
+                    }
+                    mutable.apply(move);
+                    int childH = goal.manhattan(mutable.getPacked());
+                    if (Math.abs(h - childH) > 1) {
+                        fail("heuristic", "inconsistent between " + BulkFormat.encode(board, 3) + " and "
+                                + mutable);
+                    }
+                    if (mutable.getManhattan() != childH) {
+                        fail("heuristic", "incremental distance drifted after " + move + " on "
+                                + BulkFormat.encode(board, 3));
+                    }
+                    mutable.undo(move);
+                }
+            }
+        }
+    }
+
+    /**
+     * every solver mode over seeded random 3x3 boards, with optimal lengths from the exact distances
+     */
+    private void checkSmallCorpus() {
+        long goal = PackedBoard.goal(3);
+        BoardGenerator generator = new BoardGenerator(CORPUS_SEED, 3);
+        AStarSearch astar = new AStarSearch(3);
+        IdaStar ida = new IdaStar(3);
+        PathSearch paths = new PathSearch(3);
+        //far enough off that ARA* always runs to completion and its expansions stay reproducible
+        long deadline = System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            long board = generator.nextSolvable();
+            int optimal = distances[(int) PermutationRank.rank(board, 9)];
+            String name = BulkFormat.encode(board, 3);
+
+            checkOptimal("astar-3", name, board, 3, astar.solve(board, Long.MAX_VALUE), optimal);
+            count("astar-3", astar.getExpansions());
+
+            checkOptimal("idastar-3", name, board, 3, ida.solve(board, Long.MAX_VALUE).toArray(new Move[0]),
+                    optimal);
+            count("idastar-3", ida.getExpansions());
+
+            checkOptimal("path-3", name, board, 3, paths.solve(board, goal, Long.MAX_VALUE), optimal);
+            count("path-3", paths.getExpansions());
+
+            Board start = new Board(board);
+            Solver solver = new Solver(new State(start));
+            State win = solver.solve(new State(start));
+            checkOptimal("solver-3", name, board, 3, win.getMoveList().toArray(new Move[0]), optimal);
+            count("solver-3", solver.getExpansions());
+
+            SearchResult weighted = astar.solveWeighted(board, WEIGHT, Long.MAX_VALUE);
+            checkBounded("weighted-3", name, board, goal, weighted, optimal);
+            count("weighted-3", weighted.getExpansions());
+
+            SearchResult anytime = astar.solveAnytime(board, WEIGHT, 0.5, deadline, Long.MAX_VALUE, null);
+            checkBounded("anytime-3", name, board, goal, anytime, optimal);
+            if (!anytime.isOptimal()) {
+                fail("anytime-3", name + " finished without proving optimality: " + anytime);
+            }
+            count("anytime-3", anytime.getExpansions());
+
+            SearchResult beam = astar.solveBeam(board, BEAM_WIDTH, Long.MAX_VALUE);
+            if (beam.getSolution() != null && !beam.getSolution().isValid(board, goal, 3)) {
+                fail("beam-3", name + " invalid solution " + beam.getSolution());
+            }
+            count("beam-3", beam.getExpansions());
+        }
+    }
+
+    /**
+     * optimal solvers over seeded 4x4 boards of known depth
+     */
+    private void checkLargeCorpus() {
+        AStarSearch astar = new AStarSearch(4);
+        IdaStar ida = new IdaStar(4);
+        long goal = PackedBoard.goal(4);
+        for (Instance instance : new DepthGenerator(CORPUS_SEED, 4).generate(LARGE_DEPTH, LARGE_SIZE)) {
+            long board = instance.getPacked();
+            String name = BulkFormat.encode(board, 4);
+            checkOptimal("astar-4", name, board, 4, astar.solve(board, Long.MAX_VALUE), instance.getDepth());
+            count("astar-4", astar.getExpansions());
+            checkOptimal("idastar-4", name, board, 4, ida.solve(board, Long.MAX_VALUE).toArray(new Move[0]),
+                    instance.getDepth());
+            count("idastar-4", ida.getExpansions());
+
+            SearchResult beam = astar.solveBeam(board, BEAM_WIDTH, Long.MAX_VALUE);
+            if (beam.getSolution() != null && !beam.getSolution().isValid(board, goal, 4)) {
+                fail("beam-4", name + " invalid solution " + beam.getSolution());
+            }
+            count("beam-4", beam.getExpansions());
+        }
+    }
+
+    /**
+     * compares expansion totals with baselines
+     *
+     * @param baselines mode name to baseline expansions
+     */
+    public void compare(Map<String, Long> baselines) {
+        for (Map.Entry<String, Long> entry : expansions.entrySet()) {
+            Long baseline = baselines.get(entry.getKey());
+            long measured = entry.getValue();
+            if (baseline == null) {
+                fail(entry.getKey(), "no baseline; record one with --record");
+            } else if (measured > baseline * (1 + TOLERANCE)) {
+                fail(entry.getKey(), String.format("%d expansions, %.1f%% over the baseline of %d", measured,
+                        100.0 * (measured - baseline) / baseline, baseline));
+            } else if (measured < baseline * (1 - TOLERANCE)) {
+                System.out.printf("%s: %d expansions, well under the baseline of %d; consider re-recording%n",
+                        entry.getKey(), measured, baseline);
+            }
+        }
+    }
+
+    private void checkOptimal(String mode, String name, long board, int side, Move[] moves, int optimal) {
+        long goal = PackedBoard.goal(side);
+        if (moves == null) {
+            fail(mode, name + " unsolved");
+        } else if (moves.length != optimal) {
+            fail(mode, name + " solved in " + moves.length + " moves, optimal is " + optimal);
+        } else if (!Solution.of(moves).isValid(board, goal, side)) {
+            fail(mode, name + " invalid solution " + Solution.of(moves));
+        }
+    }
+
+    private void checkBounded(String mode, String name, long board, long goal, SearchResult result, int optimal) {
+        Solution solution = result.getSolution();
+        if (solution == null) {
+            fail(mode, name + " unsolved");
+        } else if (solution.length() > result.getBound() * optimal) {
+            fail(mode, name + " solved in " + solution.length() + " moves, beyond its bound of "
+                    + result.getBound() + " x " + optimal);
+        } else if (!solution.isValid(board, goal, 3)) {
+            fail(mode, name + " invalid solution " + solution);
+        }
+    }
+
+    private void count(String mode, long expanded) {
+        expansions.merge(mode, expanded, Long::sum);
+    }
+
+    private void fail(String mode, String message) {
+        failures.add(mode + ": " + message);
+    }
+
+    /**
+     * @param file baseline file of "mode expansions" lines, '#' starting a comment
+     * @return mode name to baseline expansions
+     * @throws IOException if the file cannot be read
+     */
+    public static Map<String, Long> readBaselines(Path file) throws IOException {
+        Map<String, Long> baselines = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split("\\s+");
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("Bad baseline line: " + trimmed);
+            }
+            baselines.put(fields[0], Long.parseLong(fields[1]));
+        }
+        return baselines;
+    }
+
+    /**
+     * @param file       baseline file to overwrite
+     * @param expansions mode name to expansions
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeBaselines(Path file, Map<String, Long> expansions) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.printf("# node expansions per solver mode over the RegressionCheck corpus; a run may exceed these "
+                    + "by %.0f%%%n", 100 * TOLERANCE);
+            for (Map.Entry<String, Long> entry : expansions.entrySet()) {
+                out.println(entry.getKey() + " " + entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * runs the check, exiting with status 1 on any failure
+     *
+     * @param args [baseline file] [--record], the default file being regression-baselines.txt
+     * @throws IOException if the baseline file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        boolean record = Arrays.asList(args).contains("--record");
+        Path file = Paths.get(DEFAULT_BASELINES);
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                file = Paths.get(arg);
+            }
+        }
+
+        RegressionCheck check = new RegressionCheck();
+        long start = System.nanoTime();
+        check.run();
+        for (Map.Entry<String, Long> entry : check.getExpansions().entrySet()) {
+            System.out.printf("%-12s %,14d expansions%n", entry.getKey(), entry.getValue());
+        }
+        if (record && check.getFailures().isEmpty()) {
+            writeBaselines(file, check.getExpansions());
+            System.out.println("Recorded baselines to " + file);
+        } else if (!record) {
+            check.compare(readBaselines(file));
+        }
+        System.out.printf("Finished in %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+        for (String failure : check.getFailures()) {
+            System.out.println("FAIL " + failure);
+        }
+        if (!check.getFailures().isEmpty()) {
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+}
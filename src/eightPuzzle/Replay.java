@@ -0,0 +1,294 @@
+package eightPuzzle;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a solution back one board at a time. Every intermediate board is computed once, when the replay is
+ * created, so showing or seeking to any step is an array lookup. Playback runs at an adjustable number of steps
+ * per second, can be paused and resumed, and is driven by one scheduler thread shared by all replays.
+ * <p>
+ * A replay knows nothing of Swing; listeners are called on the scheduler thread (or on whichever thread seeks) and
+ * a GUI listener must hand the board over to the event dispatch thread itself. Methods are thread-safe.
+ */
+public class Replay {
+    /**
+     * single daemon thread ticking every replay in progress
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * receives each board a replay shows
+     */
+    public interface Listener {
+        /**
+         * @param step   number of moves made to reach the board, from 0 to {@link Replay#length()}
+         * @param packed packed board shown at step
+         */
+        void frameShown(int step, long packed);
+    }
+
+    /**
+     * frames[i] is the packed board after i moves
+     */
+    private final long[] frames;
+    private final int side;
+    private final Solution solution;
+    private final Listener listener;
+    private int step;
+    private double stepsPerSecond;
+    /**
+     * pending ticks, or null while paused
+     */
+    private ScheduledFuture<?> ticks;
+
+    /**
+     * @param start          packed board the solution starts from
+     * @param side           side length of the board
+     * @param solution       moves to play back
+     * @param stepsPerSecond initial speed
+     * @param listener       receives every board shown
+     * @throws IllegalArgumentException if a move leaves the board
+     */
+    public Replay(long start, int side, Solution solution, double stepsPerSecond, Listener listener) {
+        PackedBoard.checkSide(side);
+        checkSpeed(stepsPerSecond);
+        this.side = side;
+        this.solution = solution;
+        this.listener = listener;
+        this.stepsPerSecond = stepsPerSecond;
+        frames = new long[solution.length() + 1];
+        frames[0] = start;
+        int blank = PackedBoard.blank(start, side);
+        for (int i = 0; i < solution.length(); i++) {
+            Move move = solution.get(i);
+            if (!PackedBoard.canMove(blank, move, side)) {
+                throw new IllegalArgumentException("Move " + i + " (" + move + ") leaves the board");
+            }
+            int target = PackedBoard.target(blank, move, side);
+            frames[i + 1] = PackedBoard.slide(frames[i], blank, target);
+            blank = target;
+        }
+    }
+
+    /**
+     * @param start          3x3 board the solution starts from
+     * @param solution       moves to play back
+     * @param stepsPerSecond initial speed
+     * @param listener       receives every board shown
+     */
+    public Replay(Board start, Solution solution, double stepsPerSecond, Listener listener) {
+        this(start.pack(), 3, solution, stepsPerSecond, listener);
+    }
+
+    /**
+     * @return number of moves in the solution; steps run from 0 to length()
+     */
+    public int length() {
+        return frames.length - 1;
+    }
+
+    /**
+     * @param step number of moves made, from 0 to length()
+     * @return packed board after step moves
+     */
+    public long frame(int step) {
+        return frames[step];
+    }
+
+    /**
+     * @return solution field
+     */
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return side field
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * @return number of moves made on the board currently shown
+     */
+    public synchronized int getStep() {
+        return step;
+    }
+
+    /**
+     * @return stepsPerSecond field
+     */
+    public synchronized double getSpeed() {
+        return stepsPerSecond;
+    }
+
+    /**
+     * @return true or false as playback is or is not stopped
+     */
+    public synchronized boolean isPaused() {
+        return ticks == null;
+    }
+
+    /**
+     * @return true or false as the last board is or is not shown
+     */
+    public synchronized boolean isFinished() {
+        return step == length();
+    }
+
+    /**
+     * shows the board after step moves, without changing whether playback runs
+     *
+     * @param step number of moves made, clamped to [0, length()]
+     */
+    public void seek(int step) {
+        long packed;
+        synchronized (this) {
+            this.step = Math.max(0, Math.min(step, length()));
+            step = this.step;
+            packed = frames[step];
+        }
+        listener.frameShown(step, packed);
+    }
+
+    /**
+     * @return true or false as a further board was or was not shown
+     */
+    public boolean stepForward() {
+        int next;
+        synchronized (this) {
+            if (step == length()) {
+                return false;
+            }
+            next = step + 1;
+        }
+        seek(next);
+        return true;
+    }
+
+    /**
+     * @return true or false as an earlier board was or was not shown
+     */
+    public boolean stepBack() {
+        int previous;
+        synchronized (this) {
+            if (step == 0) {
+                return false;
+            }
+            previous = step - 1;
+        }
+        seek(previous);
+        return true;
+    }
+
+    /**
+     * starts or continues playback from the current step; playback pauses itself after the last board
+     */
+    public synchronized void resume() {
+        if (ticks != null || step == length()) {
+            return;
+        }
+        long period = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / stepsPerSecond));
+        ticks = SCHEDULER.scheduleAtFixedRate(this::tick, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * stops playback at the current step
+     */
+    public synchronized void pause() {
+        if (ticks != null) {
+            ticks.cancel(false);
+            ticks = null;
+        }
+    }
+
+    /**
+     * changes the speed, taking effect from the next step
+     *
+     * @param stepsPerSecond new speed
+     */
+    public synchronized void setSpeed(double stepsPerSecond) {
+        checkSpeed(stepsPerSecond);
+        this.stepsPerSecond = stepsPerSecond;
+        if (ticks != null) {
+            pause();
+            resume();
+        }
+    }
+
+    /**
+     * one scheduled step of playback
+     */
+    private void tick() {
+        if (!stepForward() || isFinished()) {
+            pause();
+        }
+    }
+
+    private static void checkSpeed(double stepsPerSecond) {
+        if (!(stepsPerSecond > 0) || Double.isInfinite(stepsPerSecond)) {
+            throw new IllegalArgumentException("Replay speed must be a positive number of steps per second");
+        }
+    }
+
+    /**
+     * measures headless replay throughput on a long random walk
+     *
+     * @param args [side] [moves] [rounds]
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 60_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        //a long non-reversing random walk stands in for a long solution
+        SplittableRandom random = new SplittableRandom(length);
+        long start = PackedBoard.goal(side);
+        int blank = PackedBoard.blank(start, side);
+        Move[] moves = new Move[length];
+        Move last = null;
+        for (int i = 0; i < length; ) {
+            Move move = Move.values()[random.nextInt(4)];
+            if ((last == null || move != last.inverse()) && PackedBoard.canMove(blank, move, side)) {
+                blank = PackedBoard.target(blank, move, side);
+                moves[i++] = last = move;
+            }
+        }
+        Solution solution = Solution.of(moves);
+
+        long[] checksum = {0L};
+        long begin = System.nanoTime();
+        Replay replay = new Replay(start, side, solution, 1.0, (step, packed) -> checksum[0] += packed);
+        long built = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            replay.seek(0);
+            while (replay.stepForward()) {
+                //every step is shown to the listener
+            }
+        }
+        long played = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < rounds * length; i++) {
+            replay.seek(random.nextInt(length + 1));
+        }
+        long sought = System.nanoTime() - begin;
+
+        System.out.printf("Precomputed %,d boards in %.2f ms%n", length + 1, built / 1e6);
+        System.out.printf("Played %,d steps at %.1f M steps/s%n", (long) rounds * length,
+                (double) rounds * length / played * 1e3);
+        System.out.printf("Sought %,d random steps at %.1f M seeks/s (checksum %x)%n", (long) rounds * length,
+                (double) rounds * length / sought * 1e3, checksum[0]);
+    }
+}
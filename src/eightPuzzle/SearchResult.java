@@ -0,0 +1,64 @@
+package eightPuzzle;
+
+/**
+ * Outcome of a possibly suboptimal search: the solution found and the factor by which it is guaranteed to be no
+ * longer than an optimal one
+ */
+public class SearchResult {
+    /**
+     * bound reported by searches that guarantee nothing about solution length
+     */
+    public static final double UNBOUNDED = Double.POSITIVE_INFINITY;
+
+    private final Solution solution;
+    private final double bound;
+    private final long expansions;
+
+    /**
+     * @param solution   solution found, or null if none was found
+     * @param bound      solution length is at most bound times the optimal length; 1 means optimal
+     * @param expansions number of nodes expanded so far
+     */
+    public SearchResult(Solution solution, double bound, long expansions) {
+        this.solution = solution;
+        this.bound = bound;
+        this.expansions = expansions;
+    }
+
+    /**
+     * @return solution field, null if no solution was found within the budget
+     */
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return bound field; the solution is at most this many times longer than optimal
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    /**
+     * @return expansions field
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * @return true or false as the solution is or is not proven optimal
+     */
+    public boolean isOptimal() {
+        return solution != null && bound <= 1.0;
+    }
+
+    @Override
+    public String toString() {
+        if (solution == null) {
+            return "no solution after " + expansions + " expansions";
+        }
+        return String.format("%d moves, within %.3fx of optimal, %d expansions", solution.length(), bound,
+                expansions);
+    }
+}
@@ -0,0 +1,515 @@
+package eightPuzzle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves a bulk instance file across several worker processes, on this machine or on others.
+ * <p>
+ * The input is split into shards of consecutive instances. Each {@link ShardWorker} that connects is sent one shard
+ * at a time, so faster workers simply take more shards. When a worker fails, disconnects, takes longer than the
+ * shard timeout or answers with anything but a valid solution of every board it was sent, its shard goes back in
+ * the queue for another worker, up to a maximum number of attempts. Results are written in input order as soon as
+ * every earlier shard is in, so an interrupted run leaves a valid prefix of the output. Boards a worker could not
+ * solve are written back as they were read. Workers can be launched as local processes with
+ * {@link #launchWorker(int)}, which are replaced when they exit mid-run, or started by hand on other machines,
+ * pointed at this coordinator's port.
+ * <p>
+ * One run at a time; {@link #run(List, String, Path)} blocks until it is done.
+ */
+public class ShardCoordinator implements AutoCloseable {
+    /**
+     * how often waiting threads check whether they should give up, in milliseconds
+     */
+    private static final long POLL_MILLIS = 200L;
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final int shardSize;
+    private final long budget;
+    private final int maxAttempts;
+    private final int shardTimeoutMillis;
+    private final List<Process> launched = new CopyOnWriteArrayList<>();
+    /**
+     * launched workers not yet replaced, to their number of threads
+     */
+    private final Map<Process, Integer> replaceable = new ConcurrentHashMap<>();
+    /**
+     * workers the current run may still launch in place of ones that exited
+     */
+    private int replacements;
+    /**
+     * number of workers currently connected
+     */
+    private final AtomicInteger connected = new AtomicInteger();
+    /**
+     * shards waiting for a worker
+     */
+    private final LinkedBlockingQueue<Shard> pending = new LinkedBlockingQueue<>();
+    /**
+     * shards solved, or given up on, and not yet merged
+     */
+    private final LinkedBlockingQueue<Shard> finished = new LinkedBlockingQueue<>();
+    /**
+     * number of the current run; shards of an earlier, failed run are ignored
+     */
+    private volatile int generation;
+    private volatile boolean closed;
+
+    /**
+     * Creates the coordinator and starts accepting workers
+     *
+     * @param address            address to listen on; port 0 for any free port
+     * @param shardSize          number of instances per shard
+     * @param budget             maximum number of nodes a worker expands per board
+     * @param maxAttempts        number of times a shard is sent to a worker before the run fails
+     * @param shardTimeoutMillis time a worker may take to answer one shard before it is disconnected and the shard
+     *                           sent again; 0 to wait indefinitely
+     * @throws IOException if the address cannot be bound
+     */
+    public ShardCoordinator(InetSocketAddress address, int shardSize, long budget, int maxAttempts,
+                            int shardTimeoutMillis) throws IOException {
+        if (shardSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("ShardCoordinator needs a positive shard size and number of attempts");
+        }
+        if (shardTimeoutMillis < 0) {
+            throw new IllegalArgumentException("ShardCoordinator timeout must not be negative: " + shardTimeoutMillis);
+        }
+        this.shardSize = shardSize;
+        this.budget = budget;
+        this.maxAttempts = maxAttempts;
+        this.shardTimeoutMillis = shardTimeoutMillis;
+        server = new ServerSocket();
+        server.bind(address);
+        acceptor = new Thread(this::accept, "shard-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the port workers connect to
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * starts a worker process on this machine, running the same Java and class path as this process
+     *
+     * @param threads number of solver threads in the worker
+     * @return the worker process, stopped again by {@link #close()} and replaced by a new one if it exits during a
+     * run
+     * @throws IOException if the process cannot be started
+     */
+    public Process launchWorker(int threads) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ShardWorker.class.getName(), InetAddress.getLoopbackAddress().getHostAddress(),
+                String.valueOf(getPort()), String.valueOf(threads))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        launched.add(process);
+        replaceable.put(process, threads);
+        return process;
+    }
+
+    /**
+     * solves every instance on the connected workers and writes them, in input order, to output
+     *
+     * @param instances instances to solve
+     * @param header    comment written as the output's first line, or null
+     * @param output    bulk file to (over)write with the instances, solutions added where found
+     * @return statistics of the run
+     * @throws IOException           if the output cannot be written
+     * @throws IllegalStateException if a shard fails on every attempt, or every launched worker exits
+     */
+    public synchronized Stats run(List<Instance> instances, String header, Path output) throws IOException {
+        int run = ++generation;
+        pending.clear();
+        finished.clear();
+        int count = (instances.size() + shardSize - 1) / shardSize;
+        //each failed attempt can cost at most one worker; beyond that the workers are failing on their own
+        replacements = count * maxAttempts;
+        for (int i = 0; i < count; i++) {
+            int from = i * shardSize;
+            pending.add(new Shard(run, i, instances.subList(from, Math.min(from + shardSize, instances.size()))));
+        }
+
+        Stats stats = new Stats();
+        long begin = System.nanoTime();
+        Shard[] done = new Shard[count];
+        int next = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            if (header != null) {
+                out.write("# " + header);
+                out.newLine();
+            }
+            while (next < count) {
+                checkWorkers(count - next);
+                Shard shard = finished.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (shard == null) {
+                    continue;
+                }
+                if (shard.generation != run) {
+                    continue;
+                }
+                if (shard.error != null) {
+                    throw new IllegalStateException("Shard " + shard.index + " failed " + maxAttempts
+                            + " times, last on " + shard.error);
+                }
+                stats.add(shard);
+                done[shard.index] = shard;
+                //merge: write every shard whose predecessors are all written
+                for (; next < count && done[next] != null; next++) {
+                    for (Instance instance : done[next].results) {
+                        out.write(BulkFormat.format(instance));
+                        out.newLine();
+                    }
+                    done[next] = null;
+                }
+                //an interrupted run must leave every merged shard, and only whole lines, in the file
+                out.flush();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", ex);
+        } finally {
+            pending.clear();
+        }
+        stats.elapsedNanos = System.nanoTime() - begin;
+        return stats;
+    }
+
+    /**
+     * Replaces launched workers that have exited. A worker whose shard timed out is disconnected, finishes the
+     * abandoned shard and then exits on the closed connection, so without a replacement every timeout would cost
+     * the run a worker for good.
+     *
+     * @param unfinished number of shards not merged yet
+     * @throws IOException           if a replacement cannot be started
+     * @throws IllegalStateException if workers were launched, all have exited and none is connected
+     */
+    private void checkWorkers(int unfinished) throws IOException {
+        for (Map.Entry<Process, Integer> worker : replaceable.entrySet()) {
+            if (!worker.getKey().isAlive() && replacements > 0) {
+                replaceable.remove(worker.getKey());
+                replacements--;
+                launchWorker(worker.getValue());
+            }
+        }
+        if (connected.get() > 0 || launched.isEmpty()) {
+            return;
+        }
+        for (Process process : launched) {
+            if (process.isAlive()) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Every worker exited with " + unfinished + " shards unfinished");
+    }
+
+    /**
+     * stops the workers, connected or launched, and closes the port
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ex) {
+            //nothing left to release
+        }
+        for (Process process : launched) {
+            try {
+                //connected workers are told to stop within POLL_MILLIS; the others are killed
+                if (!process.waitFor(2 * POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    process.destroy();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * acceptor loop: serves every worker that connects on a thread of its own
+     */
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread thread = new Thread(() -> serve(socket), "shard-worker-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException ex) {
+                //the server socket was closed, or one connection failed to complete
+            }
+        }
+    }
+
+    /**
+     * sends shards to one worker until the coordinator closes or the worker fails
+     *
+     * @param socket connection to the worker
+     */
+    private void serve(Socket socket) {
+        connected.incrementAndGet();
+        String name = String.valueOf(socket.getRemoteSocketAddress());
+        Shard shard = null;
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(),
+                     StandardCharsets.US_ASCII))) {
+            //the worker says nothing until a shard is solved, so this bounds the time spent on one shard
+            connection.setSoTimeout(shardTimeoutMillis);
+            while (!closed) {
+                shard = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (shard == null) {
+                    continue;
+                }
+                out.write(ShardWorker.SHARD + " " + shard.index + " " + budget + " " + shard.instances.size());
+                out.newLine();
+                for (Instance instance : shard.instances) {
+                    out.write(BulkFormat.encode(instance.getPacked(), instance.getSide()));
+                    out.newLine();
+                }
+                out.flush();
+                receive(in, shard, name);
+                finished.add(shard);
+                shard = null;
+            }
+            out.write(ShardWorker.STOP);
+            out.newLine();
+            out.flush();
+        } catch (IOException | RuntimeException ex) {
+            if (shard != null) {
+                retry(shard, name + ": " + ex.getMessage());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            if (shard != null) {
+                retry(shard, name + ": interrupted");
+            }
+        } finally {
+            connected.decrementAndGet();
+        }
+    }
+
+    /**
+     * reads and checks a worker's answer to shard, storing the results in it
+     *
+     * @throws IOException if the answer is cut short, malformed or wrong
+     */
+    private static void receive(BufferedReader in, Shard shard, String worker) throws IOException {
+        String header = in.readLine();
+        String[] fields = header == null ? new String[0] : header.split(" ");
+        if (fields.length != 5 || !fields[0].equals(ShardWorker.RESULT)
+                || Integer.parseInt(fields[1]) != shard.index
+                || Integer.parseInt(fields[2]) != shard.instances.size()) {
+            throw new IOException("bad result header: " + header);
+        }
+        List<Instance> results = new ArrayList<>(shard.instances.size());
+        for (Instance instance : shard.instances) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("connection closed within result of shard " + shard.index);
+            }
+            Instance result = BulkFormat.parse(line);
+            Solution solution = result == null ? null : result.getSolution();
+            if (result == null || result.getPacked() != instance.getPacked()
+                    || (solution != null && !solution.isValid(result.getPacked(),
+                    PackedBoard.goal(result.getSide()), result.getSide()))) {
+                throw new IOException("wrong result in shard " + shard.index + ": " + line);
+            }
+            //an unsolved board keeps its input line, depth label and any solution it came with
+            results.add(solution == null ? instance : result);
+        }
+        shard.results = results;
+        shard.expansions = Long.parseLong(fields[3]);
+        shard.nanos = Long.parseLong(fields[4]);
+        shard.worker = worker;
+    }
+
+    /**
+     * queues shard for another attempt, or gives up on it after maxAttempts
+     *
+     * @param reason what went wrong on the last attempt
+     */
+    private void retry(Shard shard, String reason) {
+        if (++shard.attempts >= maxAttempts) {
+            shard.error = reason;
+            finished.add(shard);
+        } else {
+            pending.add(shard);
+        }
+    }
+
+    /**
+     * consecutive instances sent to a worker as one unit
+     */
+    private static class Shard {
+        private final int generation;
+        private final int index;
+        private final List<Instance> instances;
+        private int attempts;
+        private List<Instance> results;
+        private long expansions;
+        private long nanos;
+        private String worker;
+        /**
+         * reason for giving up on the shard, or null
+         */
+        private String error;
+
+        private Shard(int generation, int index, List<Instance> instances) {
+            this.generation = generation;
+            this.index = index;
+            this.instances = instances;
+        }
+    }
+
+    /**
+     * totals of one run, overall and per worker
+     */
+    public static class Stats {
+        private long boards;
+        private long solved;
+        private int shards;
+        private int retries;
+        private long expansions;
+        private long elapsedNanos;
+        /**
+         * worker to {shards, boards, nanos spent solving}
+         */
+        private final Map<String, long[]> workers = new LinkedHashMap<>();
+
+        private void add(Shard shard) {
+            shards++;
+            retries += shard.attempts;
+            boards += shard.results.size();
+            for (Instance result : shard.results) {
+                if (result.getSolution() != null) {
+                    solved++;
+                }
+            }
+            expansions += shard.expansions;
+            long[] worker = workers.computeIfAbsent(shard.worker, w -> new long[3]);
+            worker[0]++;
+            worker[1] += shard.results.size();
+            worker[2] += shard.nanos;
+        }
+
+        /**
+         * @return boards field
+         */
+        public long getBoards() {
+            return boards;
+        }
+
+        /**
+         * @return solved field
+         */
+        public long getSolved() {
+            return solved;
+        }
+
+        /**
+         * @return number of shards sent again after a failed attempt
+         */
+        public int getRetries() {
+            return retries;
+        }
+
+        /**
+         * @return expansions field
+         */
+        public long getExpansions() {
+            return expansions;
+        }
+
+        /**
+         * @return elapsedNanos field
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return totals and throughput, one line overall and one per worker
+         */
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder sb = new StringBuilder(String.format(
+                    "%,d boards (%,d solved) in %,d shards on %d workers, %d retries: %.1f s, %,.1f boards/s,"
+                            + " %,.1f M expansions/s",
+                    boards, solved, shards, workers.size(), retries, seconds, boards / seconds,
+                    expansions / seconds / 1e6));
+            for (Map.Entry<String, long[]> entry : workers.entrySet()) {
+                long[] worker = entry.getValue();
+                sb.append(String.format("%n  %s: %,d shards, %,d boards, %,.1f boards/s while solving",
+                        entry.getKey(), worker[0], worker[1], worker[1] / (worker[2] / 1e9)));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Solves a bulk file on local worker processes. Given a port other than 0, the coordinator listens on every interface so
+     * that workers on other machines can join with {@code ShardWorker <host> <port>}; otherwise it listens on the
+     * loopback interface only.
+     *
+     * @param args input output [workers] [threadsPerWorker] [shardSize] [budget] [port] [shardTimeoutSeconds]
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardCoordinator <input> <output> [workers] [threadsPerWorker] [shardSize]"
+                    + " [budget] [port] [shardTimeoutSeconds]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int shardSize = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+        long budget = args.length > 5 ? Long.parseLong(args[5]) : 50_000_000L;
+        InetSocketAddress address = args.length > 6 && !args[6].equals("0")
+                ? new InetSocketAddress(Integer.parseInt(args[6]))
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        int timeout = (int) TimeUnit.SECONDS.toMillis(args.length > 7 ? Integer.parseInt(args[7]) : 600);
+
+        List<Instance> instances = BulkFormat.read(input);
+        String header = BulkFormat.readHeader(input);
+        try (ShardCoordinator coordinator = new ShardCoordinator(address, shardSize, budget, 3, timeout)) {
+            for (int i = 0; i < workers; i++) {
+                coordinator.launchWorker(threads);
+            }
+            System.out.printf("Coordinating %,d instances on port %d%n", instances.size(), coordinator.getPort());
+            System.out.println(coordinator.run(instances, header, output));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package eightPuzzle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Worker process of a {@link ShardCoordinator}: connects to the coordinator and solves the shards it is sent, on
+ * all its threads, until it is told to stop or the connection closes.
+ * <p>
+ * The protocol is line-based ASCII over one TCP connection. The coordinator sends {@code shard <id> <budget>
+ * <count>} followed by count bulk-file lines (see {@link BulkFormat}), or {@code stop}. The worker answers
+ * {@code result <id> <count> <expansions> <nanos>} followed by one bulk-file line per board in the order received,
+ * carrying its optimal distance and solution if it was solved and only the board otherwise. 3x3 boards are
+ * answered from the {@link DistanceTable}, larger boards by {@link IdaStar} under the shard's expansion budget.
+ */
+public class ShardWorker implements AutoCloseable {
+    static final String SHARD = "shard";
+    static final String RESULT = "result";
+    static final String STOP = "stop";
+
+    private final int threads;
+    private final ExecutorService pool;
+
+    /**
+     * @param threads number of boards solved at once
+     */
+    public ShardWorker(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("ShardWorker needs at least one thread");
+        }
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * serves one coordinator connection until it sends stop or closes
+     *
+     * @param host coordinator host
+     * @param port coordinator port
+     * @throws IOException if the connection fails
+     */
+    public void serve(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                     StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = in.readLine()) != null && !line.equals(STOP)) {
+                String[] fields = line.split(" ");
+                if (fields.length != 4 || !fields[0].equals(SHARD)) {
+                    throw new IOException("ShardWorker got a bad command: " + line);
+                }
+                long id = Long.parseLong(fields[1]);
+                long budget = Long.parseLong(fields[2]);
+                int count = Integer.parseInt(fields[3]);
+                List<Instance> instances = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String board = in.readLine();
+                    if (board == null) {
+                        throw new IOException("Coordinator closed the connection within shard " + id);
+                    }
+                    instances.add(BulkFormat.parse(board));
+                }
+
+                long begin = System.nanoTime();
+                long[] expansions = new long[1];
+                List<Instance> solved = solveAll(instances, budget, expansions);
+                out.write(RESULT + " " + id + " " + count + " " + expansions[0] + " " + (System.nanoTime() - begin));
+                out.newLine();
+                for (Instance instance : solved) {
+                    out.write(BulkFormat.format(instance));
+                    out.newLine();
+                }
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * solves instances in parallel, thread t taking every threads-th instance from t on
+     *
+     * @param instances  instances to solve
+     * @param budget     maximum number of nodes to expand per board
+     * @param expansions receives the total number of nodes expanded
+     * @return instances in input order, with a solution where one was found
+     */
+    private List<Instance> solveAll(List<Instance> instances, long budget, long[] expansions) {
+        Instance[] results = new Instance[instances.size()];
+        List<Callable<Long>> tasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            tasks.add(() -> {
+                IdaStar[] solvers = new IdaStar[PackedBoard.MAX_SIDE + 1];
+                long[] expanded = new long[1];
+                for (int i = first; i < results.length; i += threads) {
+                    results[i] = solve(instances.get(i), budget, solvers, expanded);
+                }
+                return expanded[0];
+            });
+        }
+        try {
+            for (Future<Long> future : pool.invokeAll(tasks)) {
+                expansions[0] += future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving shard", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Solver failed", ex.getCause());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @param instance instance to solve
+     * @param budget   maximum number of nodes to expand
+     * @param solvers  IDA* solver per side length, created on first use
+     * @param expanded receives the number of nodes expanded
+     * @return instance with its optimal distance and solution, or as given if it is unsolvable or over budget
+     */
+    private static Instance solve(Instance instance, long budget, IdaStar[] solvers, long[] expanded) {
+        long packed = instance.getPacked();
+        int side = instance.getSide();
+        if (!PackedBoard.isSolvable(packed, side)) {
+            return instance;
+        }
+        Solution solution;
+        if (side == 3) {
+            solution = DistanceTable.standard().solve(packed);
+        } else {
+            if (solvers[side] == null) {
+                solvers[side] = new IdaStar(side);
+            }
+            ArrayList<Move> moves = solvers[side].solve(packed, budget);
+            expanded[0] += solvers[side].getExpansions();
+            if (moves == null) {
+                return instance;
+            }
+            solution = Solution.of(moves);
+        }
+        return new Instance(packed, side, solution.length(), solution);
+    }
+
+    /**
+     * stops the solver threads
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * connects to a coordinator and works until it is done
+     *
+     * @param args host port [threads]
+     * @throws IOException if the connection fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardWorker <host> <port> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        try (ShardWorker worker = new ShardWorker(threads)) {
+            worker.serve(args[0], Integer.parseInt(args[1]));
+        }
+    }
+}
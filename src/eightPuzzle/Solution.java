@@ -0,0 +1,226 @@
+package eightPuzzle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, compact sequence of moves: each move is stored as its 2-bit ordinal, 32 moves to a long.
+ * <p>
+ * A solution of n moves takes 8 * ceil(n / 32) bytes of move data, against a list entry and an enum reference per
+ * move for an {@code ArrayList<Move>}. The text form is one letter per move (U, D, L, R) and the binary form is the
+ * length followed by the packed words.
+ */
+public final class Solution {
+    /**
+     * all moves, cached to avoid cloning Move.values() on every lookup
+     */
+    private static final Move[] MOVES = Move.values();
+    /**
+     * one-letter codes of the moves, by ordinal
+     */
+    private static final String LETTERS = "UDLR";
+    /**
+     * solution of no moves
+     */
+    public static final Solution EMPTY = new Solution(new long[0], 0);
+    /**
+     * longest solution the binary form can hold, its length being written as an unsigned short
+     */
+    public static final int MAX_WRITTEN_LENGTH = 0xFFFF;
+
+    private final long[] words;
+    private final int length;
+
+    /**
+     * @param words  packed moves, 32 per word starting at the low bits
+     * @param length number of moves
+     */
+    private Solution(long[] words, int length) {
+        this.words = words;
+        this.length = length;
+    }
+
+    /**
+     * @param moves moves in order
+     * @return packed solution
+     */
+    public static Solution of(Move... moves) {
+        long[] words = new long[(moves.length + 31) >>> 5];
+        for (int i = 0; i < moves.length; i++) {
+            words[i >>> 5] |= (long) moves[i].ordinal() << ((i & 31) << 1);
+        }
+        return new Solution(words, moves.length);
+    }
+
+    /**
+     * @param moves moves in order
+     * @return packed solution
+     */
+    public static Solution of(List<Move> moves) {
+        return of(moves.toArray(new Move[0]));
+    }
+
+    /**
+     * @param letters one letter per move, as produced by {@link #toString()}
+     * @return packed solution
+     */
+    public static Solution parse(String letters) {
+        long[] words = new long[(letters.length() + 31) >>> 5];
+        for (int i = 0; i < letters.length(); i++) {
+            int ordinal = LETTERS.indexOf(letters.charAt(i));
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("Bad move in solution: " + letters.charAt(i));
+            }
+            words[i >>> 5] |= (long) ordinal << ((i & 31) << 1);
+        }
+        return new Solution(words, letters.length());
+    }
+
+    /**
+     * @param in source of a solution written by {@link #write(DataOutput)}
+     * @return the solution read
+     * @throws IOException if the source fails
+     */
+    public static Solution read(DataInput in) throws IOException {
+        int length = in.readUnsignedShort();
+        long[] words = new long[(length + 31) >>> 5];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new Solution(words, length);
+    }
+
+    /**
+     * @param out destination for the length and packed words of this solution
+     * @throws IOException              if the destination fails
+     * @throws IllegalArgumentException if the solution is longer than MAX_WRITTEN_LENGTH moves
+     */
+    public void write(DataOutput out) throws IOException {
+        if (length > MAX_WRITTEN_LENGTH) {
+            throw new IllegalArgumentException("Solution too long to write: " + length + " moves");
+        }
+        out.writeShort(length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * @return number of moves
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param index index of a move
+     * @return the move at index
+     */
+    public Move get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Solution has no move " + index);
+        }
+        return MOVES[ordinal(index)];
+    }
+
+    /**
+     * @return the moves in a new list
+     */
+    public ArrayList<Move> toList() {
+        ArrayList<Move> moves = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            moves.add(MOVES[ordinal(i)]);
+        }
+        return moves;
+    }
+
+    /**
+     * replays every move on a packed board
+     *
+     * @param packed packed board
+     * @param side   side length of the board
+     * @return packed board after the last move
+     * @throws IllegalArgumentException if a move would leave the board
+     */
+    public long apply(long packed, int side) {
+        int blank = PackedBoard.blank(packed, side);
+        for (int i = 0; i < length; i++) {
+            Move move = MOVES[ordinal(i)];
+            if (!PackedBoard.canMove(blank, move, side)) {
+                throw new IllegalArgumentException("Move " + i + " (" + move + ") of the solution leaves the board");
+            }
+            int target = PackedBoard.target(blank, move, side);
+            packed = PackedBoard.slide(packed, blank, target);
+            blank = target;
+        }
+        return packed;
+    }
+
+    /**
+     * @param board 3x3 board
+     * @return new board after the last move
+     * @throws IllegalArgumentException if a move would leave the board
+     */
+    public Board apply(Board board) {
+        return new Board(apply(board.pack(), 3));
+    }
+
+    /**
+     * @param start  packed initial board
+     * @param target packed board the solution should reach
+     * @param side   side length of the board
+     * @return true or false as every move is legal and the last one reaches target
+     */
+    public boolean isValid(long start, long target, int side) {
+        try {
+            return apply(start, side) == target;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @param start 3x3 board
+     * @return true or false as every move is legal and the last one reaches the standard goal
+     */
+    public boolean isValid(Board start) {
+        return isValid(start.pack(), PackedBoard.goal(3), 3);
+    }
+
+    /**
+     * @return one letter per move, e.g. "ULDR"
+     */
+    @Override
+    public String toString() {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = LETTERS.charAt(ordinal(i));
+        }
+        return new String(letters);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Solution solution = (Solution) o;
+        return length == solution.length && Arrays.equals(words, solution.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(words) + length;
+    }
+
+    /**
+     * @param index index of a move
+     * @return ordinal of the move at index
+     */
+    private int ordinal(int index) {
+        return (int) (words[index >>> 5] >>> ((index & 31) << 1)) & 3;
+    }
+}
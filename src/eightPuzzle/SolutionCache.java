@@ -0,0 +1,152 @@
+package eightPuzzle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe, size-bounded cache of solved boards, evicting the least recently used solution once full.
+ * <p>
+ * Given a {@link SolutionStore}, the cache uses it as a second tier: every solution put is also stored, and a
+ * board missing from memory is looked up in the store and, if found there, brought back into memory. Solutions
+ * then survive restarts, and a warm restart answers boards solved by earlier runs without solving them again.
+ */
+public class SolutionCache {
+    /**
+     * maximum number of solutions held
+     */
+    private final int capacity;
+    /**
+     * access-ordered map from initial board to its packed solution
+     */
+    private final LinkedHashMap<Board, Solution> solutions;
+    /**
+     * second tier, or null
+     */
+    private final SolutionStore store;
+    /**
+     * number of lookups answered from the cache
+     */
+    private long hits;
+    /**
+     * number of lookups not answered from the cache
+     */
+    private long misses;
+    /**
+     * number of hits answered from the store rather than from memory
+     */
+    private long storeHits;
+
+    /**
+     * @param capacity maximum number of solutions held
+     */
+    public SolutionCache(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param capacity maximum number of solutions held in memory
+     * @param store    second tier holding every solution put, or null
+     */
+    public SolutionCache(int capacity, SolutionStore store) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("SolutionCache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.store = store;
+        solutions = new LinkedHashMap<Board, Solution>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Board, Solution> eldest) {
+                return size() > SolutionCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @param board initial board
+     * @return the cached solution for board, or null if it is not cached
+     */
+    public Solution get(Board board) {
+        Solution solution;
+        synchronized (this) {
+            solution = solutions.get(board);
+            if (solution != null || store == null) {
+                return count(board, solution);
+            }
+        }
+        //the store does its own locking; reading it under this lock would stall every other lookup on disk I/O
+        solution = store.get(board.pack());
+        synchronized (this) {
+            if (solution != null) {
+                //a solution put meanwhile is at least as fresh as the stored one
+                solutions.putIfAbsent(new Board(board), solution);
+                storeHits++;
+            }
+            return count(board, solution);
+        }
+    }
+
+    /**
+     * @param board    initial board
+     * @param solution solution of board
+     */
+    public void put(Board board, Solution solution) {
+        synchronized (this) {
+            solutions.put(new Board(board), solution);
+        }
+        if (store != null) {
+            store.put(board.pack(), solution);
+        }
+    }
+
+    /**
+     * counts a lookup as a hit or a miss; callers hold the lock
+     *
+     * @param board    board looked up
+     * @param solution solution found, or null
+     * @return solution
+     */
+    private Solution count(Board board, Solution solution) {
+        Events.cacheLookup(board, solution != null);
+        if (solution == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return solution;
+    }
+
+    /**
+     * @return number of cached solutions
+     */
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    /**
+     * @return hits field
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return misses field
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return storeHits field
+     */
+    public synchronized long getStoreHits() {
+        return storeHits;
+    }
+
+    /**
+     * @return store field, may be null
+     */
+    public SolutionStore getStore() {
+        return store;
+    }
+}
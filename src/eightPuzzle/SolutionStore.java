@@ -0,0 +1,680 @@
+package eightPuzzle;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent map from packed boards to their solutions, so that solutions outlive the process; a
+ * {@link SolutionCache} can use one as its second tier.
+ * <p>
+ * Boards are spread by hash over 16 shards, each an append-only segment file of records plus a memory-mapped
+ * index. A record is a CRC-32 checksum, the packed board and the solution in its binary form (see
+ * {@link Solution#write(java.io.DataOutput)}); the index is an open-addressing hash table from boards to the offset
+ * and length of their latest record, so a lookup is a probe of the mapped index and one positional read.
+ * Storing a board again appends a new record and leaves the old one dead. Once most of a shard's segment is dead, a
+ * background thread copies its live records to a new segment and renames that into place; lookups and stores in
+ * the shard continue during the copy.
+ * <p>
+ * The segments are the only source of truth. An index is marked clean only when the store is closed; after a crash
+ * it is rebuilt by scanning its segment, which stops at the first record that is cut short or fails its checksum
+ * and truncates the torn tail there. A crash therefore loses at most the solutions stored since the last
+ * {@link #flush()} and never leaves the store unreadable.
+ * <p>
+ * Methods are thread-safe, each shard having its own lock. A store directory must be opened by one process at a
+ * time.
+ */
+public class SolutionStore implements AutoCloseable {
+    private static final int SHARDS = 16;
+    private static final long SEGMENT_MAGIC = 0x3850_5A53_4547_0001L;
+    private static final long INDEX_MAGIC = 0x3850_5A49_4458_0001L;
+    /**
+     * segment header: magic and generation, which compaction increments
+     */
+    private static final int SEGMENT_HEADER = 2 * Long.BYTES;
+    /**
+     * index header: magic, generation of the segment, segment length covered, dead bytes, entries and clean flag
+     */
+    private static final int INDEX_HEADER = 4 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int GENERATION = 8;
+    private static final int COVERED = 16;
+    private static final int DEAD = 24;
+    private static final int COUNT = 32;
+    private static final int CLEAN = 36;
+    /**
+     * index slot: packed board, then record offset << 16 | record length; board 0 marks an empty slot
+     */
+    private static final int SLOT = 2 * Long.BYTES;
+    private static final int INITIAL_SLOTS = 1 << 10;
+    /**
+     * record prefix before the solution: checksum and packed board
+     */
+    private static final int RECORD_HEADER = Integer.BYTES + Long.BYTES;
+    /**
+     * dead bytes a shard must hold before it is compacted
+     */
+    private static final long MIN_DEAD_BYTES = 1 << 16;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "solution-store-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * first failure of a background compaction, reported by flush and close
+     */
+    private volatile IOException failure;
+
+    /**
+     * opens the store in directory, creating it if needed
+     *
+     * @param directory directory holding the store's files
+     * @throws IOException if the files cannot be opened or are not a store
+     */
+    public SolutionStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try {
+            for (int i = 0; i < SHARDS; i++) {
+                shards[i] = new Shard(directory.resolve(String.format("shard-%02d.seg", i)),
+                        directory.resolve(String.format("shard-%02d.idx", i)));
+            }
+        } catch (IOException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param packed packed board
+     * @return the stored solution of packed, or null if there is none
+     */
+    public Solution get(long packed) {
+        try {
+            return shard(packed).get(packed);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read solution store", ex);
+        }
+    }
+
+    /**
+     * stores a solution, replacing any earlier one of the same board
+     *
+     * @param packed   packed board, not 0
+     * @param solution solution of packed, at most {@link Solution#MAX_WRITTEN_LENGTH} moves long
+     */
+    public void put(long packed, Solution solution) {
+        if (packed == 0L) {
+            throw new IllegalArgumentException("SolutionStore cannot store the empty board");
+        }
+        try {
+            shard(packed).put(packed, solution);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write solution store", ex);
+        }
+    }
+
+    /**
+     * @return number of boards stored
+     */
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * forces every stored solution to disk, so that it survives a crash
+     *
+     * @throws IOException if writing fails, or an earlier background compaction failed
+     */
+    public void flush() throws IOException {
+        for (Shard shard : shards) {
+            shard.flush();
+        }
+        if (failure != null) {
+            throw new IOException("Background compaction of solution store failed", failure);
+        }
+    }
+
+    /**
+     * compacts every shard holding dead records now, instead of waiting for the background thread
+     *
+     * @throws IOException if a segment cannot be rewritten
+     */
+    public void compact() throws IOException {
+        for (Shard shard : shards) {
+            shard.compact();
+        }
+    }
+
+    /**
+     * waits for background compaction, then flushes and closes every shard, marking the indexes clean
+     *
+     * @throws IOException if a shard cannot be written, or an earlier background compaction failed
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        IOException error = failure;
+        for (Shard shard : shards) {
+            if (shard == null) {
+                continue;
+            }
+            try {
+                shard.close();
+            } catch (IOException ex) {
+                error = error == null ? ex : error;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private Shard shard(long packed) {
+        return shards[(int) (HeapClosedSet.mix(packed) >>> 60)];
+    }
+
+    /**
+     * one segment file and its index
+     */
+    private final class Shard {
+        private final Path segmentFile;
+        private final Path indexFile;
+        private FileChannel segment;
+        private final FileChannel indexChannel;
+        private MappedByteBuffer index;
+        private long generation;
+        /**
+         * segment length, where the next record goes
+         */
+        private long end;
+        private long deadBytes;
+        private int count;
+        private int mask;
+        private boolean compacting;
+        /**
+         * held for a whole compaction, so two never overlap; the shard's own lock is taken only briefly
+         */
+        private final Object compaction = new Object();
+
+        private Shard(Path segmentFile, Path indexFile) throws IOException {
+            this.segmentFile = segmentFile;
+            this.indexFile = indexFile;
+            segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            FileChannel opened = null;
+            try {
+                if (segment.size() < SEGMENT_HEADER) {
+                    //new, or cut short before its first record
+                    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER).putLong(SEGMENT_MAGIC).putLong(1L);
+                    header.flip();
+                    writeFully(segment, header, 0L);
+                    segment.truncate(SEGMENT_HEADER);
+                    segment.force(true);
+                }
+                ByteBuffer header = readFully(segment, 0L, SEGMENT_HEADER);
+                if (header.getLong(0) != SEGMENT_MAGIC) {
+                    throw new IOException(segmentFile + " is not a solution store segment");
+                }
+                generation = header.getLong(8);
+                end = segment.size();
+
+                opened = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                indexChannel = opened;
+                if (!loadIndex()) {
+                    rebuildIndex();
+                }
+                //until close, the index on disk may run ahead of or behind the segment
+                index.putInt(CLEAN, 0);
+                index.force();
+            } catch (IOException | RuntimeException ex) {
+                //the store never sees this shard, so its close() cannot release the channels
+                segment.close();
+                if (opened != null) {
+                    opened.close();
+                }
+                throw ex;
+            }
+        }
+
+        /**
+         * maps the index file if it was closed cleanly against the current segment
+         *
+         * @return true or false as the index could or could not be used
+         */
+        private boolean loadIndex() throws IOException {
+            long size = indexChannel.size();
+            long slots = (size - INDEX_HEADER) / SLOT;
+            if (size < INDEX_HEADER + (long) INITIAL_SLOTS * SLOT || Long.bitCount(slots) != 1
+                    || size != INDEX_HEADER + slots * SLOT) {
+                return false;
+            }
+            map((int) slots);
+            if (index.getLong(0) != INDEX_MAGIC || index.getLong(GENERATION) != generation
+                    || index.getLong(COVERED) != end || index.getInt(CLEAN) != 1) {
+                return false;
+            }
+            deadBytes = index.getLong(DEAD);
+            count = index.getInt(COUNT);
+            return true;
+        }
+
+        /**
+         * rebuilds the index from the segment, truncating the segment at its first torn record
+         */
+        private void rebuildIndex() throws IOException {
+            indexChannel.truncate(0L);
+            map(INITIAL_SLOTS);
+            index.putLong(0, INDEX_MAGIC);
+            count = 0;
+            deadBytes = 0;
+
+            long offset = SEGMENT_HEADER;
+            segment.position(offset);
+            CRC32 crc = new CRC32();
+            InputStream stream = Channels.newInputStream(segment);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+            try {
+                while (offset < end) {
+                    int checksum = in.readInt();
+                    byte[] head = new byte[Long.BYTES + Short.BYTES];
+                    in.readFully(head);
+                    int length = ((head[8] & 0xFF) << 8) | (head[9] & 0xFF);
+                    byte[] words = new byte[((length + 31) >>> 5) * Long.BYTES];
+                    in.readFully(words);
+                    crc.reset();
+                    crc.update(head);
+                    crc.update(words);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    int size = RECORD_HEADER + Short.BYTES + words.length;
+                    insert(ByteBuffer.wrap(head).getLong(0), offset, size);
+                    offset += size;
+                }
+            } catch (EOFException ex) {
+                //record cut short by a crash
+            }
+            if (offset < end) {
+                segment.truncate(offset);
+                segment.force(true);
+                end = offset;
+            }
+            writeHeader();
+        }
+
+        /**
+         * maps the index file with room for slots slots
+         */
+        private void map(int slots) throws IOException {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0L, INDEX_HEADER + (long) slots * SLOT);
+            index.order(ByteOrder.nativeOrder());
+            mask = slots - 1;
+        }
+
+        private void writeHeader() {
+            index.putLong(GENERATION, generation);
+            index.putLong(COVERED, end);
+            index.putLong(DEAD, deadBytes);
+            index.putInt(COUNT, count);
+        }
+
+        /**
+         * @return position in the index of the slot holding packed, or of the empty slot where it belongs
+         */
+        private int find(long packed) {
+            for (int slot = (int) HeapClosedSet.mix(packed) & mask; ; slot = (slot + 1) & mask) {
+                long key = index.getLong(INDEX_HEADER + slot * SLOT);
+                if (key == packed || key == 0L) {
+                    return INDEX_HEADER + slot * SLOT;
+                }
+            }
+        }
+
+        /**
+         * points the index entry of packed at a record
+         */
+        private void insert(long packed, long offset, int size) throws IOException {
+            int position = find(packed);
+            if (index.getLong(position) == packed) {
+                deadBytes += index.getLong(position + Long.BYTES) & 0xFFFF;
+            } else {
+                if (2 * (count + 1) > mask + 1) {
+                    grow();
+                    position = find(packed);
+                }
+                index.putLong(position, packed);
+                count++;
+            }
+            index.putLong(position + Long.BYTES, offset << 16 | size);
+        }
+
+        /**
+         * doubles the index, rehashing every entry
+         */
+        private void grow() throws IOException {
+            int slots = mask + 1;
+            long[] keys = new long[count];
+            long[] values = new long[count];
+            int n = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                int position = INDEX_HEADER + slot * SLOT;
+                if (index.getLong(position) != 0L) {
+                    keys[n] = index.getLong(position);
+                    values[n++] = index.getLong(position + Long.BYTES);
+                    index.putLong(position, 0L);
+                }
+            }
+            map(2 * slots);
+            for (int i = 0; i < n; i++) {
+                int position = find(keys[i]);
+                index.putLong(position, keys[i]);
+                index.putLong(position + Long.BYTES, values[i]);
+            }
+        }
+
+        private synchronized Solution get(long packed) throws IOException {
+            int position = find(packed);
+            if (index.getLong(position) != packed) {
+                return null;
+            }
+            long value = index.getLong(position + Long.BYTES);
+            ByteBuffer record = readFully(segment, value >>> 16, (int) value & 0xFFFF);
+            return Solution.read(new DataInputStream(new ByteArrayInputStream(record.array(), RECORD_HEADER,
+                    record.capacity() - RECORD_HEADER)));
+        }
+
+        private synchronized void put(long packed, Solution solution) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_HEADER + 32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeLong(packed);
+            solution.write(out);
+            ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), Integer.BYTES, record.capacity() - Integer.BYTES);
+            record.putInt(0, (int) crc.getValue());
+
+            writeFully(segment, record, end);
+            insert(packed, end, record.capacity());
+            end += record.capacity();
+            writeHeader();
+            if (!compacting && deadBytes >= MIN_DEAD_BYTES && 2 * deadBytes > end) {
+                compacting = true;
+                compactor.execute(() -> {
+                    try {
+                        compact();
+                    } catch (IOException ex) {
+                        failure = failure == null ? ex : failure;
+                    }
+                });
+            }
+        }
+
+        private synchronized int size() {
+            return count;
+        }
+
+        private synchronized void flush() throws IOException {
+            segment.force(false);
+            index.force();
+        }
+
+        /**
+         * Copies the live records to a new segment, renames it over the old one and repoints the index. Only the
+         * start and the end hold the shard's lock: the live records are copied from a snapshot of the index while
+         * lookups and stores go on, then records stored meanwhile are appended and the index is repointed.
+         */
+        private void compact() throws IOException {
+            synchronized (compaction) {
+                try {
+                    compactUnlocked();
+                } finally {
+                    synchronized (this) {
+                        compacting = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * body of {@link #compact()}; callers hold the compaction lock but not the shard's
+         */
+        private void compactUnlocked() throws IOException {
+            long[] keys;
+            long[] values;
+            long snapshotEnd;
+            long snapshotDead;
+            long next;
+            FileChannel source;
+            synchronized (this) {
+                if (deadBytes == 0) {
+                    return;
+                }
+                keys = new long[count];
+                values = new long[count];
+                int n = 0;
+                for (int slot = 0; slot <= mask; slot++) {
+                    int position = INDEX_HEADER + slot * SLOT;
+                    if (index.getLong(position) != 0L) {
+                        keys[n] = index.getLong(position);
+                        values[n++] = index.getLong(position + Long.BYTES);
+                    }
+                }
+                snapshotEnd = end;
+                snapshotDead = deadBytes;
+                next = generation + 1;
+                source = segment;
+            }
+
+            //records below snapshotEnd never change, so they are copied without the lock
+            Path temp = segmentFile.resolveSibling(segmentFile.getFileName() + ".compact");
+            long[] moved = new long[keys.length];
+            long offset = SEGMENT_HEADER;
+            FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER).putLong(SEGMENT_MAGIC).putLong(next);
+                header.flip();
+                writeFully(out, header, 0L);
+                for (int i = 0; i < keys.length; i++) {
+                    int size = (int) values[i] & 0xFFFF;
+                    writeFully(out, readFully(source, values[i] >>> 16, size), offset);
+                    moved[i] = offset << 16 | size;
+                    offset += size;
+                }
+
+                synchronized (this) {
+                    //records stored since the snapshot keep their order after the copied ones
+                    long tail = end - snapshotEnd;
+                    long shift = offset - snapshotEnd;
+                    for (long copied = 0; copied < tail; ) {
+                        out.position(offset + copied);
+                        copied += segment.transferTo(snapshotEnd + copied, tail - copied, out);
+                    }
+                    out.force(true);
+                    out.close();
+                    //the old segment stays in place until the new one is complete
+                    Files.move(temp, segmentFile, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                    segment.close();
+                    segment = FileChannel.open(segmentFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+                    for (int slot = 0; slot <= mask; slot++) {
+                        int position = INDEX_HEADER + slot * SLOT + Long.BYTES;
+                        long value = index.getLong(position);
+                        if (index.getLong(position - Long.BYTES) != 0L && value >>> 16 >= snapshotEnd) {
+                            index.putLong(position, value + (shift << 16));
+                        }
+                    }
+                    //a board stored again since the snapshot already points into the tail
+                    for (int i = 0; i < keys.length; i++) {
+                        int position = find(keys[i]) + Long.BYTES;
+                        if (index.getLong(position) == values[i]) {
+                            index.putLong(position, moved[i]);
+                        }
+                    }
+                    generation = next;
+                    end += shift;
+                    //records dead at the snapshot are gone; those that died since were copied
+                    deadBytes -= snapshotDead;
+                    writeHeader();
+                }
+            } catch (IOException ex) {
+                out.close();
+                Files.deleteIfExists(temp);
+                throw ex;
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            try {
+                segment.force(true);
+                writeHeader();
+                index.putInt(CLEAN, 1);
+                index.force();
+            } finally {
+                segment.close();
+                indexChannel.close();
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Solution store record at " + position + " is cut short");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Checks the store against the distance table and measures it: stores the solutions of random 3x3 boards,
+     * reopens the store and reads them back, overwrites them to trigger compaction, and finally abandons the store
+     * without closing it and with a torn record at the end of a segment, as a crash would, before reading it again.
+     *
+     * @param args directory [boards]
+     * @throws IOException if the store cannot be used
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SolutionStore <directory> [boards]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        DistanceTable table = DistanceTable.standard();
+        BoardGenerator generator = new BoardGenerator(new SplittableRandom(count).nextLong(), 3);
+        long[] boards = new long[count];
+        Solution[] solutions = new Solution[count];
+        for (int i = 0; i < count; i++) {
+            boards[i] = generator.nextSolvable();
+            solutions[i] = table.solve(boards[i]);
+        }
+
+        long begin = System.nanoTime();
+        try (SolutionStore store = new SolutionStore(directory)) {
+            for (int i = 0; i < count; i++) {
+                store.put(boards[i], solutions[i]);
+            }
+        }
+        long wrote = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        SolutionStore store = new SolutionStore(directory);
+        long opened = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        check(store, boards, solutions);
+        long read = System.nanoTime() - begin;
+        System.out.printf("Stored %,d solutions of %,d boards in %.0f ms; reopened in %.1f ms; %.2f us per lookup%n",
+                count, store.size(), wrote / 1e6, opened / 1e6, read / 1e3 / count);
+
+        //every board written twice more leaves two thirds of each segment dead
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < count; i++) {
+                store.put(boards[i], solutions[i]);
+            }
+        }
+        store.flush();
+        store.compact();
+        check(store, boards, solutions);
+        System.out.printf("Rewrote every board twice and compacted: %,d boards in %,d bytes%n", store.size(),
+                directorySize(directory));
+
+        //a crash: the store is never closed, and the last record of a segment is half written; rewriting only half
+        //the boards keeps compaction from starting, which would still be running on the abandoned store
+        for (int i = 0; i < count / 2; i++) {
+            store.put(boards[i], solutions[i]);
+        }
+        store.flush();
+        Path segment = directory.resolve("shard-00.seg");
+        Files.write(segment, new byte[]{1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+        begin = System.nanoTime();
+        try (SolutionStore recovered = new SolutionStore(directory)) {
+            long recovery = System.nanoTime() - begin;
+            check(recovered, boards, solutions);
+            System.out.printf("Recovered %,d boards after a simulated crash in %.1f ms%n", recovered.size(),
+                    recovery / 1e6);
+        }
+    }
+
+    private static void check(SolutionStore store, long[] boards, Solution[] solutions) {
+        for (int i = 0; i < boards.length; i++) {
+            if (!solutions[i].equals(store.get(boards[i]))) {
+                throw new IllegalStateException("SolutionStore lost the solution of "
+                        + BulkFormat.encode(boards[i], 3));
+            }
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        long size = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                size += Files.size(file);
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,61 @@
+package eightPuzzle;
+
+import java.util.ArrayList;
+
+/**
+ * Command-line solver for short jobs: solves the boards given as arguments and prints one bulk-file line per board,
+ * the board followed by its optimal distance and solution (see {@link BulkFormat}), or the board followed by
+ * {@code unsolvable} or {@code budget-exceeded}.
+ * <p>
+ * 3x3 boards are answered by descending the memory-mapped {@link DistanceTable}, 4x4 boards by {@link IdaStar}.
+ * Nothing is precomputed before the first board is read, so together with the class archive built by
+ * {@code appcds.sh} a run takes little more than JVM startup. For example
+ * {@code java -cp eightPuzzle.jar eightPuzzle.SolveCommand 123456708 123456789abcdef0}.
+ */
+public final class SolveCommand {
+    /**
+     * maximum number of nodes IDA* expands per 4x4 board
+     */
+    private static final long BUDGET = 50_000_000L;
+
+    private SolveCommand() {
+    }
+
+    /**
+     * @param cells board as one hex digit per cell
+     * @return bulk-file line answering the board
+     */
+    public static String solve(String cells) {
+        long packed = BulkFormat.decode(cells);
+        int side = BulkFormat.sideOf(cells);
+        if (!PackedBoard.isSolvable(packed, side)) {
+            return cells + " unsolvable";
+        }
+        Solution solution;
+        if (side == 3) {
+            solution = DistanceTable.standard().solve(packed);
+        } else {
+            ArrayList<Move> moves = new IdaStar(side).solve(packed, BUDGET);
+            if (moves == null) {
+                return cells + " budget-exceeded";
+            }
+            solution = Solution.of(moves);
+        }
+        return BulkFormat.format(new Instance(packed, side, solution.length(), solution));
+    }
+
+    /**
+     * @param args boards to solve, each as one hex digit per cell
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: SolveCommand <board>...   e.g. SolveCommand 123456708");
+            System.exit(2);
+        }
+        StringBuilder out = new StringBuilder();
+        for (String cells : args) {
+            out.append(solve(cells)).append(System.lineSeparator());
+        }
+        System.out.print(out);
+    }
+}
@@ -0,0 +1,417 @@
+package eightPuzzle;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small local HTTP service that solves boards.
+ * <p>
+ * {@code POST /solve} takes one board and {@code POST /solve/batch} takes one board per line; a board is its nine
+ * tiles in row-major order separated by spaces or commas, 0 being the blank. An optional {@code budget} query
+ * parameter caps the number of states expanded per board. Each board is answered by one line of the response:
+ * the number of moves followed by the moves as one letter each (U, D, L, R, see {@link Solution}), or
+ * {@code unsolvable}, or {@code budget-exceeded}.
+ * <p>
+ * Boards from concurrent requests are admitted through a bounded number of permits and coalesced by a single
+ * dispatcher thread into micro-batches for a {@link BatchSolver}; when no permits are left the request is rejected
+ * with 429 so the service sheds load instead of queueing without limit. The dispatcher only submits each batch, so
+ * batches overlap on the solver threads and a board's permit is returned as soon as that board is answered. Bodies
+ * over a megabyte, and batches of more boards than the queue holds, are rejected with 413 as they could never be
+ * admitted.
+ */
+public class SolveService implements AutoCloseable {
+    /**
+     * HTTP status used to reject requests while the admission queue is full
+     */
+    private static final int TOO_MANY_REQUESTS = 429;
+    /**
+     * HTTP status used to reject request bodies and batches that could never be admitted
+     */
+    private static final int PAYLOAD_TOO_LARGE = 413;
+    /**
+     * largest request body read, in bytes; far more than a full queue of boards takes
+     */
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    /**
+     * most bytes discarded from an oversized body before the connection is dropped
+     */
+    private static final long MAX_DRAINED_BYTES = 16L * MAX_BODY_BYTES;
+    /**
+     * how long the dispatcher waits for more boards to join a batch, in milliseconds
+     */
+    private static final long LINGER_MILLIS = 2L;
+    /**
+     * how often main forces the solution store to disk, in seconds
+     */
+    private static final long FLUSH_SECONDS = 10L;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final BatchSolver solver;
+    private final Thread dispatcher;
+    /**
+     * boards admitted but not yet handed to the solver
+     */
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    /**
+     * one permit per board that may be admitted; bounds the queue plus the boards being solved
+     */
+    private final Semaphore admission;
+    private final int queueCapacity;
+    private final int maxBatch;
+    private final long defaultBudget;
+    private final long maxBudget;
+
+    /**
+     * Creates and starts the service on the loopback interface
+     *
+     * @param port          port to listen on, or 0 for any free port
+     * @param threads       number of solver threads
+     * @param queueCapacity maximum number of boards admitted at once
+     * @param maxBatch      maximum number of boards per micro-batch
+     * @param defaultBudget expansion budget for requests that do not specify one
+     * @param maxBudget     largest expansion budget a request may ask for
+     * @param cache         solutions shared between requests
+     * @throws IOException if the port cannot be bound
+     */
+    public SolveService(int port, int threads, int queueCapacity, int maxBatch, long defaultBudget, long maxBudget,
+                        SolutionCache cache) throws IOException {
+        this.admission = new Semaphore(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.maxBatch = maxBatch;
+        this.defaultBudget = defaultBudget;
+        this.maxBudget = maxBudget;
+        this.solver = new BatchSolver(threads, cache);
+
+        //handler threads only parse, wait and reply; admission bounds how many of them wait at once
+        handlers = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/solve", this::handle);
+
+        dispatcher = new Thread(this::dispatch, "solve-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        server.start();
+    }
+
+    /**
+     * @return the port the service is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * stops accepting requests and shuts down the solver, once the boards it is solving are done
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        dispatcher.interrupt();
+        handlers.shutdownNow();
+        solver.close();
+    }
+
+    /**
+     * handles both /solve and /solve/batch
+     *
+     * @param exchange the HTTP request and response
+     * @throws IOException if the client connection fails
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            boolean batch = path.equals("/solve/batch");
+            if (!batch && !path.equals("/solve")) {
+                reply(exchange, 404, "not found\n");
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                reply(exchange, 405, "use POST\n");
+                return;
+            }
+
+            String body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                reply(exchange, PAYLOAD_TOO_LARGE, "request body over " + MAX_BODY_BYTES + " bytes\n");
+                return;
+            }
+            List<Board> boards;
+            long budget;
+            try {
+                boards = parseBoards(body);
+                budget = parseBudget(exchange.getRequestURI().getQuery());
+            } catch (IllegalArgumentException ex) {
+                reply(exchange, 400, ex.getMessage() + "\n");
+                return;
+            }
+            if (boards.isEmpty() || (!batch && boards.size() != 1)) {
+                reply(exchange, 400, batch ? "no boards given\n" : "expected exactly one board\n");
+                return;
+            }
+            if (boards.size() > queueCapacity) {
+                reply(exchange, PAYLOAD_TOO_LARGE, "at most " + queueCapacity + " boards per batch\n");
+                return;
+            }
+            if (!admission.tryAcquire(boards.size())) {
+                reply(exchange, TOO_MANY_REQUESTS, "overloaded\n");
+                return;
+            }
+
+            List<CompletableFuture<Solution>> results = new ArrayList<>(boards.size());
+            for (Board board : boards) {
+                Pending pending = new Pending(board, budget);
+                results.add(pending.result);
+                queue.add(pending);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < boards.size(); i++) {
+                sb.append(format(boards.get(i), results.get(i).get())).append('\n');
+            }
+            reply(exchange, 200, sb.toString());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            reply(exchange, 503, "shutting down\n");
+        } catch (ExecutionException ex) {
+            reply(exchange, 500, "solver failed\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * dispatcher loop: waits for a board, lingers briefly to collect more, then hands them to the solver as one
+     * batch and goes straight back to collecting
+     */
+    private void dispatch() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+                while (batch.size() < maxBatch) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                solveBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * submits one micro-batch to the solver; each pending result completes, and gives back its permit, as soon as
+     * its own board is solved, so one slow board holds up neither the dispatcher nor the rest of the batch
+     *
+     * @param batch admitted boards
+     */
+    private void solveBatch(List<Pending> batch) {
+        List<Board> boards = new ArrayList<>(batch.size());
+        long[] budgets = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            boards.add(batch.get(i).board);
+            budgets[i] = batch.get(i).budget;
+        }
+        List<CompletableFuture<Solution>> solutions;
+        try {
+            solutions = solver.submitAll(boards, budgets);
+        } catch (RuntimeException ex) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(ex);
+            }
+            admission.release(batch.size());
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<Solution> result = batch.get(i).result;
+            solutions.get(i).whenComplete((solution, ex) -> {
+                admission.release();
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(solution);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param body request body, one board per non-blank line
+     * @return parsed boards
+     */
+    private static List<Board> parseBoards(String body) {
+        List<Board> boards = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] values = trimmed.split("[\\s,]+");
+            if (values.length != 9) {
+                throw new IllegalArgumentException("a board needs 9 tiles: " + trimmed);
+            }
+            int[][] tiles = new int[3][3];
+            boolean[] seen = new boolean[9];
+            for (int i = 0; i < 9; i++) {
+                int tile;
+                try {
+                    tile = Integer.parseInt(values[i]);
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("bad tile value: " + values[i]);
+                }
+                if (tile < 0 || tile > 8 || seen[tile]) {
+                    throw new IllegalArgumentException("tiles must be 0-8, each once: " + trimmed);
+                }
+                seen[tile] = true;
+                tiles[i / 3][i % 3] = tile;
+            }
+            boards.add(new Board(tiles));
+        }
+        return boards;
+    }
+
+    /**
+     * @param query request query string, may be null
+     * @return budget asked for, or the default budget
+     */
+    private long parseBudget(String query) {
+        if (query == null) {
+            return defaultBudget;
+        }
+        for (String param : query.split("&")) {
+            if (param.startsWith("budget=")) {
+                try {
+                    long budget = Long.parseLong(param.substring("budget=".length()));
+                    if (budget < 1 || budget > maxBudget) {
+                        throw new IllegalArgumentException("budget must be in [1," + maxBudget + "]");
+                    }
+                    return budget;
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("bad budget: " + param);
+                }
+            }
+        }
+        return defaultBudget;
+    }
+
+    /**
+     * @param board the board that was solved
+     * @param solution its solution, or null
+     * @return response line for one board
+     */
+    private static String format(Board board, Solution solution) {
+        if (solution == null) {
+            return Solver.isSolveable(board) ? "budget-exceeded" : "unsolvable";
+        }
+        return solution.length() + " " + solution;
+    }
+
+    /**
+     * @param in request body
+     * @return the body, or null if it is longer than MAX_BODY_BYTES
+     * @throws IOException if the client connection fails
+     */
+    private static String readBody(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            //closing with unread input would reset the connection and lose the 413; give up on absurd bodies
+            in.skip(MAX_DRAINED_BYTES);
+            return null;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * a board waiting in the admission queue
+     */
+    private static class Pending {
+        private final Board board;
+        private final long budget;
+        private final CompletableFuture<Solution> result = new CompletableFuture<>();
+
+        private Pending(Board board, long budget) {
+            this.board = board;
+            this.budget = budget;
+        }
+    }
+
+    /**
+     * starts the service on localhost
+     *
+     * @param args optional port, default 8080, and optional directory of a {@link SolutionStore} keeping solutions
+     *             across restarts
+     * @throws IOException if the port cannot be bound or the store cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        SolutionStore store = args.length > 1 ? new SolutionStore(Paths.get(args[1])) : null;
+        SolveService service = new SolveService(port, threads, 1024, 64, 200_000L, 5_000_000L,
+                new SolutionCache(10_000, store));
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "solution-store-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (store != null) {
+            //bounds what a crash loses to the last few seconds of solutions
+            flusher.scheduleWithFixedDelay(() -> {
+                try {
+                    store.flush();
+                } catch (IOException ex) {
+                    System.err.println("Could not flush solution store: " + ex.getMessage());
+                }
+            }, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+        }
+        //the store goes last, after the solvers writing to it have stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            service.close();
+            //interrupting a flush would close the store's channels under it, so let a running one finish
+            flusher.shutdown();
+            if (store != null) {
+                try {
+                    flusher.awaitTermination(1, TimeUnit.MINUTES);
+                    store.close();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException ex) {
+                    //the segments are intact; the next start rebuilds the indexes from them
+                }
+            }
+        }, "solve-service-close"));
+        System.out.printf("Solving on http://localhost:%d/solve%n", service.getPort());
+    }
+}
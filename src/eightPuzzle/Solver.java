@@ -1,8 +1,12 @@
 package eightPuzzle;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * @author Alec Mills
@@ -11,42 +15,59 @@ import java.util.PriorityQueue;
  * Utilizes an A* algorithm to solve numbered tile puzzles based on the game 'Fifteen', but with dimensions of 3x3
  */
 public class Solver {
+    /**
+     * amount the heuristic weight drops between anytime iterations
+     */
+    private static final double ANYTIME_STEP = 0.5;
     /**
      * We use a priority queue in order to allow the A* algorithm to have a heuristic for choosing which move
      * to make at any given point
      */
     private final PriorityQueue<State> queue;
     /**
-     * Board representing the goal state, used for comparison against current board-state to detect win condition
+     * packed-board A* engine; nodes are kept in its arena rather than as State objects
+     */
+    private final AStarSearch search;
+    /**
+     * board-to-board engine, created on first use and kept so queries from the same start share one search tree
      */
-    private final Board goal = new Board(new int[][]{
-            {1, 2, 3},
-            {4, 5, 6},
-            {7, 8, 0}
-    });
+    private PathSearch paths;
 
     /**
-     * @param initial State corresponding to the initial board position with no moves made
+     * @param initial State corresponding to the initial board position with no moves made; the search heads for
+     *                its goal
      */
     public Solver(State initial) {
+        this(initial, new HeapClosedSet(1 << 12));
+    }
+
+    /**
+     * @param initial State corresponding to the initial board position with no moves made
+     * @param closed  closed set for the search, e.g. an {@link OffHeapClosedSet} for searches larger than the heap
+     */
+    public Solver(State initial, ClosedSet closed) {
         queue = new PriorityQueue<>();
         queue.add(initial);
+        search = new AStarSearch(initial.getGoal(), closed);
     }
 
     /**
-     * uses inversions method to determine if a given board configuration is solveable
+     * uses permutation parity to determine if a given board configuration is solveable
      *
      * @param board the Board to test
      * @return true or false as the board is or is not solveable
      */
     public static boolean isSolveable(Board board) {
-        int inversions = 0;
-        for (int[] row : board.getTiles()) {
-            for (int tile : row) {
-                inversions += countInversions(board, tile);
-            }
-        }
-        return inversions % 2 == 0;
+        return isSolveable(board, Goal.standard(3));
+    }
+
+    /**
+     * @param board the Board to test
+     * @param goal  target layout
+     * @return true or false as goal can or cannot be reached from board
+     */
+    public static boolean isSolveable(Board board, Goal goal) {
+        return goal.isReachableFrom(board.pack());
     }
 
     /**
@@ -63,48 +84,109 @@ public class Solver {
      * @return solved board-state
      */
     public State solve(State initial) {
+        return solve(initial, Long.MAX_VALUE);
+    }
+
+    /**
+     * Attempts to find an optimal solution within a budget of expanded states
+     *
+     * @param initial       initial board state
+     * @param maxExpansions maximum number of states to expand before giving up
+     * @return solved board-state, or null if the budget ran out first
+     */
+    public State solve(State initial, long maxExpansions) {
+        Move[] moves = search.solve(initial.getBoard().pack(), maxExpansions);
+        if (moves == null) {
+            return null;
+        }
+        //rebuild the chain of states along the solution path only
         State head = initial;
-        do {
-            ArrayList<State> children = getNeighboringStates(head);
-            for (State el : children) {
-                if (!el.getMoveList().equals(head.getMoveList())) {
-                    queue.add(el);
-                }
-            }
-            head = queue.poll();
-        } while ((!head.getBoard().equals(goal)));
+        for (Move move : moves) {
+            head = new State(head.getBoard().move(move), head, move);
+        }
         return head;
     }
 
     /**
-     * helper method for isSolveable; count's inversions for a given tile on a given board
+     * Finds an optimal path between two arbitrary boards. Consecutive queries from the same start board reuse the
+     * search tree built by the earlier ones.
      *
-     * @param board the board to be checked
-     * @param value the tile to be checked
-     * @return number of inversions
-     */
-    private static int countInversions(Board board, int value) {
-        int inversions = 0;
-        if (value != 0) {
-            //copy board[][] into a single dimension array for ease of comparison
-            int[] tiles = new int[9];
-            int index = 0;
-            for (int i = 0; i < 3; i++) {
-                for (int j = 0; j < 3; j++) {
-                    tiles[index] = board.getTiles()[i][j];
-                    index++;
-                }
-            }
-            //compare values
-            int[] rowCol = board.getTileIndex(value);
-            int valueIndex = (rowCol[0] * 3) + rowCol[1];
-            for (int i = valueIndex + 1; i < 9; i++) {
-                if (tiles[i] < value && tiles[i] != 0) {
-                    inversions++;
-                }
-            }
+     * @param from start board
+     * @param to   target board, which must be reachable from from
+     * @return optimal solution taking from to to
+     */
+    public Solution solve(Board from, Board to) {
+        return solve(from, Collections.singleton(to));
+    }
+
+    /**
+     * Finds an optimal path from a board to the nearest of several targets; {@link Solution#apply(Board)} tells
+     * which target it reaches. Consecutive queries from the same start board reuse the search tree built by the
+     * earlier ones, so asking for each target in turn costs little more than the farthest one alone.
+     *
+     * @param from    start board
+     * @param targets target boards, at least one reachable from from
+     * @return optimal solution taking from to its nearest target
+     */
+    public Solution solve(Board from, Set<Board> targets) {
+        if (paths == null) {
+            paths = new PathSearch(3);
+        }
+        long[] packed = new long[targets.size()];
+        int i = 0;
+        for (Board target : targets) {
+            packed[i++] = target.pack();
         }
-        return inversions;
+        return Solution.of(paths.solve(from.pack(), packed, Long.MAX_VALUE));
+    }
+
+    /**
+     * Weighted A*: expands nodes in order of moves made plus weight times the Manhattan distance, trading solution
+     * length for speed
+     *
+     * @param initial       initial board state
+     * @param weight        heuristic weight, at least 1
+     * @param maxExpansions maximum number of states to expand before giving up
+     * @return solution at most weight times longer than optimal, with its bound
+     */
+    public SearchResult solveWeighted(State initial, double weight, long maxExpansions) {
+        return search.solveWeighted(initial.getBoard().pack(), weight, maxExpansions);
+    }
+
+    /**
+     * Beam search: keeps only the width most promising states of each depth, so memory and time stay bounded but
+     * neither solution length nor success is guaranteed
+     *
+     * @param initial       initial board state
+     * @param width         number of states kept per depth
+     * @param maxExpansions maximum number of states to expand before giving up
+     * @return solution, if found, with an unbounded suboptimality bound
+     */
+    public SearchResult solveBeam(State initial, int width, long maxExpansions) {
+        return search.solveBeam(initial.getBoard().pack(), width, maxExpansions);
+    }
+
+    /**
+     * Anytime repairing A* (ARA*): finds a weighted solution fast, then improves it while time remains
+     *
+     * @param initial       initial board state
+     * @param initialWeight heuristic weight of the first solution, at least 1
+     * @param timeoutMillis time after which the best solution so far is returned
+     * @param listener      receives every improved solution as it is found, or null
+     * @return best solution found in time, with its bound
+     */
+    public SearchResult solveAnytime(State initial, double initialWeight, long timeoutMillis,
+                                     Consumer<SearchResult> listener) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        return search.solveAnytime(initial.getBoard().pack(), initialWeight, ANYTIME_STEP, deadline,
+                Long.MAX_VALUE, listener);
+    }
+
+    /**
+     * @return number of states expanded by the last call to solve
+     */
+    public long getExpansions() {
+        return search.getExpansions();
     }
 
     /**
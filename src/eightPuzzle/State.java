@@ -25,6 +25,10 @@ public class State implements Comparable {
      * moves made on initial board to reach current board-state
      */
     private final ArrayList<Move> previousMoves;
+    /**
+     * target layout the priority is measured against
+     */
+    private final Goal goal;
 
 
     /**
@@ -36,6 +40,7 @@ public class State implements Comparable {
      */
     public State(Board board, State previous, Move move) {
         this.board = board;
+        goal = previous.getGoal();
         numMoves = previous.getNumMoves() + 1;
         priority = manhattan(board);
         if (previous.getMoveList() != null) {
@@ -51,7 +56,21 @@ public class State implements Comparable {
      * @param initialBoard the initial tile-arrangement of the board
      */
     public State(Board initialBoard) {
+        this(initialBoard, Goal.standard(3));
+    }
+
+    /**
+     * initial state of a game played towards a custom goal
+     *
+     * @param initialBoard the initial tile-arrangement of the board
+     * @param goal         target layout
+     */
+    public State(Board initialBoard, Goal goal) {
+        if (goal.getSide() != 3) {
+            throw new IllegalArgumentException("State only supports 3x3 goals");
+        }
         board = initialBoard;
+        this.goal = goal;
         numMoves = 0;
         priority = manhattan(board);
         previousMoves = new ArrayList<>();
@@ -72,6 +91,13 @@ public class State implements Comparable {
         return numMoves;
     }
 
+    /**
+     * @return goal field
+     */
+    public Goal getGoal() {
+        return goal;
+    }
+
     /**
      * @return board field
      */
@@ -112,41 +138,7 @@ public class State implements Comparable {
      * @return sum of each block's distance away from goal position (in number of numMoves) + number of numMoves made so far
      */
     private int manhattan(Board board) {
-        int distances = 0;
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                int tile = board.getTiles()[i][j];
-                //we don't compute manhattan distance of blank tile
-                if (tile != 0) {
-                    int goalRow;
-                    int goalCol;
-                    //goalRow depends on value of tile
-                    switch (tile) {
-                        case 1:
-                        case 2:
-                        case 3:
-                            goalRow = 0;
-                            break;
-                        case 4:
-                        case 5:
-                        case 6:
-                            goalRow = 1;
-                            break;
-                        case 7:
-                        case 8:
-                            goalRow = 2;
-                            break;
-                        default:
-                            throw new IllegalArgumentException("passed bad tile value to State.manhattan(): " + tile);
-                    }
-                    //goalCol depends on value of goalRow and value of goalTile
-                    goalCol = tile - 1 - (3 * goalRow);
-                    //using formula |y2 - y1| + |x2 - x1| to compute distances
-                    distances += Math.abs(goalRow - i) + Math.abs(goalCol - j);
-                }
-            }
-        }
-        return distances + getNumMoves();
+        return goal.manhattan(board.pack()) + getNumMoves();
     }
 
 //    /**
@@ -0,0 +1,459 @@
+package eightPuzzle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Breadth-first enumeration of a puzzle's whole state space outward from the goal board, yielding how many boards
+ * lie at each distance; the last non-empty distance is the puzzle's God's number.
+ * <p>
+ * {@link #inMemory(byte[])} keeps 2 bits per permutation rank (unseen, current layer, next layer, done) and is meant
+ * for 3x3. {@link #onDisk(Path, int, int)} is a frontier search that keeps only two layers, each a sorted file of
+ * packed boards: children are sorted in memory-sized runs, then merged with duplicates and the previous layer
+ * removed. Since every move changes the blank's colour on a chessboard colouring, a child never lies in its own
+ * layer and only the previous layer has to be subtracted. Both modes expand each layer in parallel.
+ */
+public class StateSpaceBfs {
+    private static final long UNSEEN = 0;
+    private static final long CURRENT = 1;
+    private static final long NEXT = 2;
+    private static final long DONE = 3;
+    /**
+     * all moves, cached to avoid cloning Move.values() at every board
+     */
+    private static final Move[] MOVES = Move.values();
+    /**
+     * states handled per parallel task of the in-memory mode
+     */
+    private static final int WORDS_PER_TASK = 1 << 10;
+    /**
+     * largest window of a layer file mapped at once, in bytes
+     */
+    private static final long MAP_WINDOW = 1L << 28;
+
+    private final int side;
+    private final int cells;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param side        side length of the puzzle
+     * @param parallelism number of threads expanding each layer
+     */
+    public StateSpaceBfs(int side, int parallelism) {
+        PackedBoard.checkSide(side);
+        this.side = side;
+        this.cells = side * side;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * enumerates the state space in a 2-bit-per-rank bitmap
+     *
+     * @param distances array of cells! entries to receive the distance of every board by its
+     *                  {@link PermutationRank rank} (unreachable ranks are left untouched), or null
+     * @return number of boards at each distance from the goal
+     */
+    public long[] inMemory(byte[] distances) {
+        long states = PermutationRank.factorial(cells);
+        if (states / 32 >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("State space of side " + side + " is too large to enumerate in memory");
+        }
+        if (distances != null && distances.length != states) {
+            throw new IllegalArgumentException("distances must have one entry per permutation rank");
+        }
+        int words = (int) ((states + 31) / 32);
+        AtomicLongArray bits = new AtomicLongArray(words);
+        long goal = PackedBoard.goal(side);
+        mark(bits, PermutationRank.rank(goal, cells), CURRENT);
+
+        List<Long> counts = new ArrayList<>();
+        long layer = 1;
+        for (int depth = 0; layer > 0; depth++) {
+            counts.add(layer);
+            int current = depth;
+            int tasks = (words + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+            LongAdder next = new LongAdder();
+            run(() -> IntStream.range(0, tasks).parallel().forEach(task -> {
+                int end = Math.min(words, (task + 1) * WORDS_PER_TASK);
+                for (int word = task * WORDS_PER_TASK; word < end; word++) {
+                    expandWord(bits, word, distances, current);
+                }
+            }));
+            //current becomes done, next becomes current
+            run(() -> IntStream.range(0, tasks).parallel().forEach(task -> {
+                int end = Math.min(words, (task + 1) * WORDS_PER_TASK);
+                long promoted = 0;
+                for (int word = task * WORDS_PER_TASK; word < end; word++) {
+                    long value = bits.get(word);
+                    long updated = 0;
+                    for (int slot = 0; slot < 32; slot++) {
+                        long state = (value >>> (2 * slot)) & 3;
+                        if (state == CURRENT) {
+                            state = DONE;
+                        } else if (state == NEXT) {
+                            state = CURRENT;
+                            promoted++;
+                        }
+                        updated |= state << (2 * slot);
+                    }
+                    bits.set(word, updated);
+                }
+                next.add(promoted);
+            }));
+            layer = next.sum();
+        }
+        return toArray(counts);
+    }
+
+    /**
+     * enumerates the state space as a frontier search over sorted layer files
+     *
+     * @param workDir   directory for layer and run files, which are deleted as soon as they are no longer needed
+     * @param maxDepth  deepest layer to generate
+     * @param runLength number of children each thread sorts in memory before writing a run
+     * @return number of boards at each distance from the goal, up to maxDepth
+     * @throws IOException if a layer file cannot be written or read
+     */
+    public long[] onDisk(Path workDir, int maxDepth, int runLength) throws IOException {
+        Files.createDirectories(workDir);
+        Path previous = null;
+        Path current = workDir.resolve("layer-0.bin");
+        try (LongWriter out = new LongWriter(current)) {
+            out.write(PackedBoard.goal(side));
+        }
+        List<Long> counts = new ArrayList<>();
+        counts.add(1L);
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            List<Path> runs = expandLayer(workDir, current, depth, runLength);
+            Path next = workDir.resolve("layer-" + depth + ".bin");
+            long count = merge(runs, previous, next);
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            if (previous != null) {
+                Files.deleteIfExists(previous);
+            }
+            previous = current;
+            current = next;
+            if (count == 0) {
+                break;
+            }
+            counts.add(count);
+        }
+        if (previous != null) {
+            Files.deleteIfExists(previous);
+        }
+        Files.deleteIfExists(current);
+        return toArray(counts);
+    }
+
+    /**
+     * stops the worker threads
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * expands every current-layer state held in one word of the bitmap
+     */
+    private void expandWord(AtomicLongArray bits, int word, byte[] distances, int depth) {
+        long value = bits.get(word);
+        for (int slot = 0; slot < 32; slot++) {
+            if (((value >>> (2 * slot)) & 3) != CURRENT) {
+                continue;
+            }
+            long rank = (long) word * 32 + slot;
+            if (distances != null) {
+                distances[(int) rank] = (byte) depth;
+            }
+            long packed = PermutationRank.unrank(rank, cells);
+            int blank = PackedBoard.blank(packed, side);
+            for (Move move : MOVES) {
+                if (PackedBoard.canMove(blank, move, side)) {
+                    long child = PackedBoard.slide(packed, blank, PackedBoard.target(blank, move, side));
+                    mark(bits, PermutationRank.rank(child, cells), NEXT);
+                }
+            }
+        }
+    }
+
+    /**
+     * atomically moves an unseen rank to a new state
+     */
+    private static void mark(AtomicLongArray bits, long rank, long state) {
+        int word = (int) (rank >>> 5);
+        int shift = (int) (rank & 31) * 2;
+        while (true) {
+            long old = bits.get(word);
+            if (((old >>> shift) & 3) != UNSEEN || bits.compareAndSet(word, old, old | (state << shift))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * expands a layer file in parallel, each thread writing sorted, duplicate-free runs of children
+     *
+     * @return run files
+     */
+    private List<Path> expandLayer(Path workDir, Path layer, int depth, int runLength) throws IOException {
+        long size = Files.size(layer) / Long.BYTES;
+        int parts = (int) Math.max(1, Math.min(pool.getParallelism(), size));
+        List<List<Path>> runs = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            runs.add(new ArrayList<>());
+        }
+        run(() -> IntStream.range(0, parts).parallel().forEach(part -> {
+            long from = size * part / parts;
+            long to = size * (part + 1) / parts;
+            long[] buffer = new long[runLength];
+            int filled = 0;
+            try (LongReader in = new LongReader(layer, from, to)) {
+                while (in.hasNext()) {
+                    long packed = in.next();
+                    int blank = PackedBoard.blank(packed, side);
+                    for (Move move : MOVES) {
+                        if (!PackedBoard.canMove(blank, move, side)) {
+                            continue;
+                        }
+                        if (filled == buffer.length) {
+                            runs.get(part).add(writeRun(workDir, depth, part, runs.get(part).size(), buffer, filled));
+                            filled = 0;
+                        }
+                        buffer[filled++] = PackedBoard.slide(packed, blank, PackedBoard.target(blank, move, side));
+                    }
+                }
+                if (filled > 0) {
+                    runs.get(part).add(writeRun(workDir, depth, part, runs.get(part).size(), buffer, filled));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }));
+        List<Path> all = new ArrayList<>();
+        for (List<Path> partRuns : runs) {
+            all.addAll(partRuns);
+        }
+        return all;
+    }
+
+    /**
+     * sorts, de-duplicates and writes one run
+     */
+    private static Path writeRun(Path workDir, int depth, int part, int index, long[] buffer, int filled)
+            throws IOException {
+        Arrays.sort(buffer, 0, filled);
+        Path run = workDir.resolve("run-" + depth + "-" + part + "-" + index + ".bin");
+        try (LongWriter out = new LongWriter(run)) {
+            for (int i = 0; i < filled; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1]) {
+                    out.write(buffer[i]);
+                }
+            }
+        }
+        return run;
+    }
+
+    /**
+     * k-way merges sorted runs into a sorted layer without duplicates or boards of the previous layer
+     *
+     * @return number of boards written
+     */
+    private static long merge(List<Path> runs, Path previous, Path target) throws IOException {
+        List<LongReader> readers = new ArrayList<>();
+        PriorityQueue<LongReader> heads = new PriorityQueue<>((a, b) -> Long.compare(a.peek(), b.peek()));
+        LongReader old = null;
+        long count = 0;
+        try (LongWriter out = new LongWriter(target)) {
+            for (Path run : runs) {
+                LongReader reader = new LongReader(run, 0, Files.size(run) / Long.BYTES);
+                readers.add(reader);
+                if (reader.hasNext()) {
+                    heads.add(reader);
+                }
+            }
+            if (previous != null) {
+                old = new LongReader(previous, 0, Files.size(previous) / Long.BYTES);
+            }
+            boolean any = false;
+            long last = 0;
+            while (!heads.isEmpty()) {
+                LongReader head = heads.poll();
+                long value = head.next();
+                if (head.hasNext()) {
+                    heads.add(head);
+                }
+                if (any && value == last) {
+                    continue;
+                }
+                any = true;
+                last = value;
+                while (old != null && old.hasNext() && old.peek() < value) {
+                    old.next();
+                }
+                if (old != null && old.hasNext() && old.peek() == value) {
+                    continue;
+                }
+                out.write(value);
+                count++;
+            }
+        } finally {
+            for (LongReader reader : readers) {
+                reader.close();
+            }
+            if (old != null) {
+                old.close();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * runs a parallel stream inside this instance's pool so it uses the requested parallelism
+     */
+    private void run(Runnable task) {
+        try {
+            pool.submit(task).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during breadth-first search", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) ex.getCause();
+            }
+            throw new IllegalStateException("Breadth-first search failed", ex.getCause());
+        }
+    }
+
+    private static long[] toArray(List<Long> counts) {
+        long[] array = new long[counts.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = counts.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * buffered writer of longs to a file
+     */
+    private static final class LongWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+        private LongWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        private void write(long value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(value);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    /**
+     * sequential reader of a range of longs in a file, mapping it one window at a time
+     */
+    private static final class LongReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        private LongReader(Path file, long from, long to) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            position = from;
+            end = to;
+        }
+
+        private boolean hasNext() {
+            return position < end;
+        }
+
+        private long peek() {
+            try {
+                long offset = position * Long.BYTES;
+                if (window == null || offset >= windowStart + window.capacity()) {
+                    windowStart = offset;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                            Math.min(MAP_WINDOW, end * Long.BYTES - offset));
+                }
+                return window.getLong((int) (offset - windowStart));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private long next() {
+            long value = peek();
+            position++;
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * prints the distance distribution of a puzzle
+     *
+     * @param args side, then optionally a work directory to enumerate on disk and a maximum depth
+     * @throws IOException if the on-disk enumeration fails
+     */
+    public static void main(String[] args) throws IOException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        StateSpaceBfs bfs = new StateSpaceBfs(side, Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        long[] counts;
+        if (args.length > 1) {
+            int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+            counts = bfs.onDisk(Paths.get(args[1]), maxDepth, 1 << 22);
+        } else {
+            counts = bfs.inMemory(null);
+        }
+        bfs.shutdown();
+        long total = 0;
+        for (int depth = 0; depth < counts.length; depth++) {
+            System.out.printf("%3d %,d%n", depth, counts[depth]);
+            total += counts[depth];
+        }
+        System.out.printf("%,d boards, God's number %d, %.1f ms%n", total, counts.length - 1,
+                (System.nanoTime() - start) / 1e6);
+    }
+}